@@ -0,0 +1,119 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// JfrEvents.java
+//
+// The Flight Recorder events behind QwixxEvents.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Everything that refers to {@code jdk.jfr}, events included. Built only by
+ * the {@code jfr} profile, and loaded by {@code QwixxEvents} only once events
+ * are turned on.
+ */
+final class JfrEvents implements QwixxEvents.EventSink {
+
+  @Override
+  public void rolled() {
+    RollEvent event = new RollEvent();
+    if (event.isEnabled()) {
+      event.commit();
+    }
+  }
+
+  @Override
+  public void selected(int row, int col, QwixxModel.StatusCode status) {
+    SelectEvent event = new SelectEvent();
+    if (event.isEnabled()) {
+      event.row = row;
+      event.col = col;
+      event.status = status.name();
+      event.valid = status == QwixxModel.StatusCode.VALID;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void passed(boolean white, boolean penalty) {
+    PassEvent event = new PassEvent();
+    if (event.isEnabled()) {
+      event.white = white;
+      event.penalty = penalty;
+      event.commit();
+    }
+  }
+
+  @Override
+  public boolean viewUpdatesEnabled() {
+    return new ViewUpdateEvent().isEnabled();
+  }
+
+  @Override
+  public void viewUpdated(long nanos) {
+    ViewUpdateEvent event = new ViewUpdateEvent();
+    if (event.isEnabled()) {
+      event.nanos = nanos;
+      event.commit();
+    }
+  }
+
+  @Name("gvsucis.Roll")
+  @Label("Roll")
+  @Category("Qwixx")
+  @Description("The dice were rolled")
+  @StackTrace(false)
+  static final class RollEvent extends Event {
+  }
+
+  @Name("gvsucis.Select")
+  @Label("Select")
+  @Category("Qwixx")
+  @Description("A number box was selected")
+  @StackTrace(false)
+  static final class SelectEvent extends Event {
+    @Label("Row")
+    int row;
+
+    @Label("Column")
+    int col;
+
+    @Label("Status")
+    String status;
+
+    @Label("Valid")
+    boolean valid;
+  }
+
+  @Name("gvsucis.Pass")
+  @Label("Pass")
+  @Category("Qwixx")
+  @Description("The player passed on the white or the colored dice")
+  @StackTrace(false)
+  static final class PassEvent extends Event {
+    @Label("White Dice")
+    boolean white;
+
+    @Label("Penalty")
+    boolean penalty;
+  }
+
+  @Name("gvsucis.ViewUpdate")
+  @Label("View Update")
+  @Category("Qwixx")
+  @Description("QwixxView applied a change to the model")
+  static final class ViewUpdateEvent extends Event {
+    @Label("Update Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+  }
+}
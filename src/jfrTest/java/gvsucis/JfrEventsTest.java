@@ -0,0 +1,60 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrEventsTest {
+
+  @AfterEach
+  public void turnOff() {
+    QwixxEvents.enableFlightRecorder(false);
+  }
+
+  @Test
+  @DisplayName("a Flight Recorder recording captures the events")
+  public void flightRecorder() throws Exception {
+    assertTrue(QwixxEvents.enableFlightRecorder(true));
+    Path file = Files.createTempFile("qwixx", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("gvsucis.Roll");
+      recording.enable("gvsucis.Select");
+      recording.enable("gvsucis.Pass");
+      recording.start();
+      QwixxMetricsTest.play();
+      recording.stop();
+      recording.dump(file);
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+      Map<String, Integer> counts = new HashMap<>();
+      for (RecordedEvent event : events) {
+        counts.merge(event.getEventType().getName(), 1, Integer::sum);
+        if (event.getEventType().getName().equals("gvsucis.Select") && event.getInt("row") == 1) {
+          assertEquals("DICE_DONT_MATCH", event.getString("status"));
+          assertFalse(event.getBoolean("valid"));
+        }
+      }
+      assertEquals(2, counts.get("gvsucis.Roll"));
+      assertEquals(2, counts.get("gvsucis.Select"));
+      assertEquals(3, counts.get("gvsucis.Pass"));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  @DisplayName("the console loads Flight Recorder classes once events are turned on")
+  public void consoleLoadsJfrWhenOn() throws Exception {
+    List<String> classes = QwixxMetricsTest.consoleClasses("-D" + QwixxEvents.JFR_PROPERTY + "=true");
+    assertTrue(classes.stream().anyMatch(line -> line.contains("jdk.jfr.Event")));
+  }
+}
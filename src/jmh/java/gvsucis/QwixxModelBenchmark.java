@@ -0,0 +1,117 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxModelBenchmark.java
+//
+// JMH benchmarks for QwixxModel's hot methods.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of the model's hot methods on the standard board and on a large
+ * custom board. Run with {@code -prof gc} to see allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QwixxModelBenchmark {
+
+  // rows x columns x white dice
+  @Param({ "4x11x2", "12x40x4" })
+  public String board;
+
+  private QwixxModel model;
+  private QwixxModel midGame;
+  private QwixxPolicy policy;
+  private int[] fixedDice;
+  private int selectRow;
+  private int selectCol;
+
+  @Setup
+  public void setup() {
+    String[] dims = board.split("x");
+    int rows = Integer.parseInt(dims[0]);
+    int cols = Integer.parseInt(dims[1]);
+    int white = Integer.parseInt(dims[2]);
+
+    model = new QwixxModel(rows, cols, white);
+    policy = QwixxPolicy.greedy(2);
+
+    // All ones: the white dice sum to 2, which is column 0 of the first row.
+    fixedDice = new int[model.numDice()];
+    Arrays.fill(fixedDice, 1);
+    selectRow = 0;
+    selectCol = 0;
+
+    // A game part-way through, for the read-only queries.
+    midGame = new QwixxModel(rows, cols, white);
+    for (int turn = 0; turn < 6 && !midGame.gameOver(); ++turn) {
+      midGame.rollDice();
+      while (midGame.canSelect()) {
+        int choice = policy.choose(midGame);
+        if (choice == QwixxPolicy.PASS) {
+          if (midGame.canPassWhite()) {
+            midGame.passWhite();
+          } else {
+            break;
+          }
+        } else {
+          midGame.numberSelected(choice / cols, choice % cols);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public QwixxModel rollDice() {
+    model.rollDice();
+    return model;
+  }
+
+  @Benchmark
+  public QwixxModel rollDiceFixed() {
+    model.rollDice(fixedDice);
+    return model;
+  }
+
+  // Includes reset() and rollDice(int[]) so every call selects from a fresh board.
+  @Benchmark
+  public QwixxModel.StatusCode numberSelected() {
+    model.reset();
+    model.rollDice(fixedDice);
+    return model.numberSelected(selectRow, selectCol);
+  }
+
+  @Benchmark
+  public String[] scoreValues() {
+    return midGame.scoreValues();
+  }
+
+  @Benchmark
+  public String[][] numberValues() {
+    return midGame.numberValues();
+  }
+
+  @Benchmark
+  public boolean canSelect() {
+    return midGame.canSelect();
+  }
+
+  // A whole game on random dice, every decision made by the greedy policy.
+  @Benchmark
+  public void fullGreedyGame(Blackhole bh) {
+    model.reset();
+    bh.consume(QwixxSimulator.playGame(model, policy));
+    bh.consume(model.totalScore());
+  }
+}
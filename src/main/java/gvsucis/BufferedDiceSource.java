@@ -0,0 +1,71 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// BufferedDiceSource.java
+//
+// Pre-generates die rolls a block at a time.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+/**
+ * A {@code DiceSource} that draws a whole block of rolls from another source at
+ * once, then hands them out one at a time. The rolls are the same, in the same
+ * order, as drawing from the underlying source directly; only the batching
+ * differs.
+ */
+public class BufferedDiceSource implements DiceSource {
+
+  private final DiceSource source;
+  private final byte[] block;
+  private int next;
+
+  /**
+   * Constructor
+   * 
+   * @param source    the source to draw rolls from
+   * @param blockSize the number of rolls to generate at a time
+   */
+  public BufferedDiceSource(DiceSource source, int blockSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Block size must be positive.");
+    }
+    this.source = source;
+    this.block = new byte[blockSize];
+    this.next = blockSize;
+  }
+
+  /**
+   * Constructor using a 4096-roll block.
+   * 
+   * @param source the source to draw rolls from
+   */
+  public BufferedDiceSource(DiceSource source) {
+    this(source, 4096);
+  }
+
+  private void refill() {
+    for (int i = 0; i < block.length; ++i) {
+      block[i] = (byte) source.nextDie();
+    }
+    next = 0;
+  }
+
+  @Override
+  public int nextDie() {
+    if (next == block.length) {
+      refill();
+    }
+    return block[next++];
+  }
+
+  @Override
+  public void roll(int[] dice) {
+    for (int i = 0; i < dice.length; ++i) {
+      if (next == block.length) {
+        refill();
+      }
+      dice[i] = block[next++];
+    }
+  }
+}
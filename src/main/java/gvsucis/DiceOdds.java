@@ -0,0 +1,160 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// DiceOdds.java
+//
+// Exact probabilities of rolling each number for a given number of white dice.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The probability that a single roll lets the player cross out a box showing a
+ * given number. Tables are built once per number of white dice and shared by
+ * every {@code QwixxModel} with that many white dice, so lookups are O(1).
+ * 
+ * Whether a roll can produce a number depends only on which faces the white
+ * dice show, counting each face at most twice (a pair needs two of the same
+ * face). The tables are built by convolving the distribution over those
+ * capped face counts with one more die at a time, then reading off the hits
+ * for each of the 3^6 possible count vectors.
+ */
+public class DiceOdds {
+
+  private static final int FACES = 6;
+  private static final int MAX_SUM = 2 * FACES;
+
+  // A capped face count vector is a base-3 number: digit f - 1 is how many
+  // dice show f (0, 1, or "2 or more").
+  private static final int STATES = 729; // 3^6
+  private static final int[] POW3 = { 1, 3, 9, 27, 81, 243 };
+
+  private static final ConcurrentHashMap<Integer, DiceOdds> cache = new ConcurrentHashMap<>();
+
+  private final int numWhiteDice;
+  private final double[] white = new double[MAX_SUM + 1];
+  private final double[] color = new double[MAX_SUM + 1];
+  private final double[] either = new double[MAX_SUM + 1];
+
+  /**
+   * The (shared) odds for the given number of white dice.
+   * 
+   * @param numWhiteDice the number of white dice
+   * @return the odds
+   */
+  public static DiceOdds forWhiteDice(int numWhiteDice) {
+    // (Not computeIfAbsent with a method reference, which would bootstrap a
+    // lambda on the way to the first game.)
+    DiceOdds odds = cache.get(numWhiteDice);
+    if (odds == null) {
+      DiceOdds built = new DiceOdds(numWhiteDice);
+      odds = cache.putIfAbsent(numWhiteDice, built);
+      if (odds == null) {
+        odds = built;
+      }
+    }
+    return odds;
+  }
+
+  private DiceOdds(int numWhiteDice) {
+    this.numWhiteDice = numWhiteDice;
+
+    // Distribution over capped face counts, one die at a time.
+    double[] dist = new double[STATES];
+    dist[0] = 1;
+    for (int d = 0; d < numWhiteDice; ++d) {
+      double[] next = new double[STATES];
+      for (int state = 0; state < STATES; ++state) {
+        if (dist[state] == 0) {
+          continue;
+        }
+        for (int face = 1; face <= FACES; ++face) {
+          int digit = state / POW3[face - 1] % 3;
+          int to = digit == 2 ? state : state + POW3[face - 1];
+          next[to] += dist[state] / FACES;
+        }
+      }
+      dist = next;
+    }
+
+    for (int state = 0; state < STATES; ++state) {
+      if (dist[state] == 0) {
+        continue;
+      }
+
+      // Sums reachable by a pair of white dice.
+      int pairs = 0;
+      for (int a = 1; a <= FACES; ++a) {
+        int na = state / POW3[a - 1] % 3;
+        for (int b = a; b <= FACES && na > 0; ++b) {
+          int nb = state / POW3[b - 1] % 3;
+          if (a == b ? na >= 2 : nb > 0) {
+            pairs |= 1 << (a + b);
+          }
+        }
+      }
+
+      for (int c = 1; c <= FACES; ++c) {
+        // Sums reachable by one white die plus the colored die.
+        int sums = 0;
+        for (int a = 1; a <= FACES; ++a) {
+          if (state / POW3[a - 1] % 3 > 0) {
+            sums |= 1 << (a + c);
+          }
+        }
+        double p = dist[state] / FACES;
+        for (int n = 2; n <= MAX_SUM; ++n) {
+          if ((sums & (1 << n)) != 0) {
+            color[n] += p;
+          }
+          if (((sums | pairs) & (1 << n)) != 0) {
+            either[n] += p;
+          }
+        }
+      }
+      for (int n = 2; n <= MAX_SUM; ++n) {
+        if ((pairs & (1 << n)) != 0) {
+          white[n] += dist[state];
+        }
+      }
+    }
+  }
+
+  public int numWhiteDice() {
+    return numWhiteDice;
+  }
+
+  /**
+   * The probability that some pair of white dice sums to {@code n}.
+   * 
+   * @param n a number
+   * @return the probability
+   */
+  public double whiteHit(int n) {
+    return n < 0 || n > MAX_SUM ? 0 : white[n];
+  }
+
+  /**
+   * The probability that some white die plus one colored die sums to
+   * {@code n}.
+   * 
+   * @param n a number
+   * @return the probability
+   */
+  public double colorHit(int n) {
+    return n < 0 || n > MAX_SUM ? 0 : color[n];
+  }
+
+  /**
+   * The probability that a roll lets the player cross out {@code n} in a given
+   * row with either the white dice or a white die plus that row's colored die.
+   * 
+   * @param n a number
+   * @return the probability
+   */
+  public double eitherHit(int n) {
+    return n < 0 || n > MAX_SUM ? 0 : either[n];
+  }
+}
@@ -0,0 +1,79 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// DiceSource.java
+//
+// Where QwixxModel.rollDice() gets its random numbers.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A source of die rolls. {@code QwixxModel} takes one of these in its
+ * constructor so that simulations can choose between speed (no shared state)
+ * and reproducibility (seeded streams).
+ * 
+ * Unless stated otherwise, implementations are not thread-safe: give each thread
+ * (or each game) its own source.
+ */
+public interface DiceSource {
+
+  /**
+   * Roll one six-sided die.
+   * 
+   * @return a value from 1 to 6
+   */
+  public int nextDie();
+
+  /**
+   * Roll every die in the given array.
+   * 
+   * @param dice the array to fill with values from 1 to 6
+   */
+  public default void roll(int[] dice) {
+    for (int i = 0; i < dice.length; ++i) {
+      dice[i] = nextDie();
+    }
+  }
+
+  /**
+   * A source backed by {@code ThreadLocalRandom}. It is safe to share between
+   * threads and never contends, but is not reproducible.
+   * 
+   * @return the source
+   */
+  public static DiceSource threadLocal() {
+    // (A class rather than a lambda: every new QwixxModel uses this source, and
+    // bootstrapping the first lambda adds tens of milliseconds to startup.)
+    return new DiceSource() {
+      @Override
+      public int nextDie() {
+        return ThreadLocalRandom.current().nextInt(1, 7);
+      }
+    };
+  }
+
+  /**
+   * A source backed by the given {@code java.util.Random}.
+   * 
+   * @param random the generator to draw from
+   * @return the source
+   */
+  public static DiceSource of(Random random) {
+    return () -> random.nextInt(6) + 1;
+  }
+
+  /**
+   * A deterministic source: two sources created with the same seed produce the
+   * same rolls.
+   * 
+   * @param seed the seed
+   * @return the source
+   */
+  public static SplitMixDiceSource seeded(long seed) {
+    return new SplitMixDiceSource(seed);
+  }
+}
@@ -0,0 +1,462 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// ExpectimaxSolver.java
+//
+// Chooses the move that maximizes the expected final score.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * An expectimax search over Qwixx positions. The value of a position is the
+ * expected final score when every future turn is played to maximize it,
+ * averaged over every roll of the dice. The search looks {@code depth} turns
+ * ahead; a position at the horizon is valued at its current score plus a
+ * fixed amount for each box that can still be crossed out. (Without that
+ * credit, a shallow search happily skips boxes it will need later.)
+ * 
+ * Positions are packed into a 64-bit key (the last column marked and the
+ * number of boxes marked in each row, plus the penalties), and values are
+ * cached in a fixed-size transposition table, so memory use does not grow
+ * with the search. Each chance node reached from a query is averaged over the
+ * white-dice outcomes in parallel.
+ * 
+ * Within a turn the colored dice are independent, so the expected best
+ * decision over all {@code 6^rows} colored outcomes is computed exactly from
+ * the per-row distributions rather than by enumerating them.
+ * 
+ * The key has 12 bits per row, so the solver supports at most four rows and
+ * 63 columns.
+ */
+public class ExpectimaxSolver implements QwixxPolicy {
+
+  private static final int ROW_BITS = 12;
+  private static final int FIELD_BITS = 6;
+  private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+  private static final int MAX_ROWS = 4;
+  private static final int PENALTY_SHIFT = MAX_ROWS * ROW_BITS;
+  private static final long PENALTY_MASK = 0x7;
+  private static final int DEPTH_SHIFT = PENALTY_SHIFT + 3;
+
+  private static final int MAX_SUM = 12;
+  private static final int PENALTY_POINTS = 5;
+
+  private final int numRows;
+  private final int numCols;
+  private final int numWhiteDice;
+  private final int maxPenalties;
+  private final int depth;
+  private final double openBoxValue;
+
+  // columnOfSum[row][n] is the column printed with n in that row, or -1.
+  private final int[][] columnOfSum;
+
+  // The distinct outcomes of the white dice (as sorted values) and the
+  // probability of each.
+  private final int[][] whiteOutcomes;
+  private final double[] whiteProbability;
+
+  private final TranspositionTable table;
+
+  /**
+   * Constructor
+   * 
+   * @param layout       a game with the board to solve (only its shape is used)
+   * @param depth        the number of turns to look ahead (at least 1)
+   * @param tableBits    the transposition table holds {@code 2^tableBits}
+   *                     entries
+   * @param openBoxValue the points credited at the horizon for each box still
+   *                     open
+   */
+  public ExpectimaxSolver(ReadOnlyQwixxModel layout, int depth, int tableBits, double openBoxValue) {
+    if (layout.numRows() > MAX_ROWS || layout.numColumns() >= 1 << FIELD_BITS) {
+      throw new IllegalArgumentException("The solver supports at most " + MAX_ROWS + " rows and "
+          + ((1 << FIELD_BITS) - 1) + " columns.");
+    }
+    if (depth < 1 || depth >= 1 << (Long.SIZE - DEPTH_SHIFT)) {
+      throw new IllegalArgumentException("Bad search depth: " + depth);
+    }
+
+    this.numRows = layout.numRows();
+    this.numCols = layout.numColumns();
+    this.numWhiteDice = layout.numWhiteDice();
+    this.maxPenalties = layout.maxPenalties();
+    this.depth = depth;
+    this.openBoxValue = openBoxValue;
+    this.table = new TranspositionTable(tableBits);
+
+    columnOfSum = new int[numRows][MAX_SUM + 1];
+    for (int row = 0; row < numRows; ++row) {
+      Arrays.fill(columnOfSum[row], -1);
+      for (int col = 0; col < numCols; ++col) {
+        int number = layout.numberAt(row, col);
+        if (number <= MAX_SUM) {
+          columnOfSum[row][number] = col;
+        }
+      }
+    }
+
+    // Enumerate every ordered roll of the white dice, merging rolls that are
+    // the same multiset of values.
+    int rolls = (int) Math.pow(6, numWhiteDice);
+    Map<String, int[]> distinct = new LinkedHashMap<>();
+    Map<String, Integer> counts = new HashMap<>();
+    for (int r = 0; r < rolls; ++r) {
+      int[] values = new int[numWhiteDice];
+      for (int i = 0, x = r; i < numWhiteDice; ++i, x /= 6) {
+        values[i] = x % 6 + 1;
+      }
+      Arrays.sort(values);
+      String key = Arrays.toString(values);
+      distinct.putIfAbsent(key, values);
+      counts.merge(key, 1, Integer::sum);
+    }
+    whiteOutcomes = distinct.values().toArray(new int[0][]);
+    whiteProbability = new double[whiteOutcomes.length];
+    int i = 0;
+    for (String key : distinct.keySet()) {
+      whiteProbability[i++] = counts.get(key) / (double) rolls;
+    }
+  }
+
+  /**
+   * Constructor that credits 2 points per open box at the horizon (the best
+   * value we found for one- and two-turn searches on the standard board).
+   * 
+   * @param layout    a game with the board to solve (only its shape is used)
+   * @param depth     the number of turns to look ahead (at least 1)
+   * @param tableBits the transposition table holds {@code 2^tableBits} entries
+   */
+  public ExpectimaxSolver(ReadOnlyQwixxModel layout, int depth, int tableBits) {
+    this(layout, depth, tableBits, 2.0);
+  }
+
+  /**
+   * Constructor for a standard board, searching two turns ahead with a table of
+   * 2^20 entries (16 MB).
+   */
+  public ExpectimaxSolver() {
+    this(new QwixxModel(), 2, 20);
+  }
+
+  //
+  // Packed positions
+  //
+
+  private static int last(long pos, int row) {
+    return (int) ((pos >>> (row * ROW_BITS)) & FIELD_MASK) - 1;
+  }
+
+  private static int count(long pos, int row) {
+    return (int) ((pos >>> (row * ROW_BITS + FIELD_BITS)) & FIELD_MASK);
+  }
+
+  private static int penalties(long pos) {
+    return (int) ((pos >>> PENALTY_SHIFT) & PENALTY_MASK);
+  }
+
+  private static long mark(long pos, int row, int col) {
+    int shift = row * ROW_BITS;
+    long fields = ((long) (count(pos, row) + 1) << FIELD_BITS) | (col + 1);
+    return (pos & ~(((1L << ROW_BITS) - 1) << shift)) | (fields << shift);
+  }
+
+  private static long penalize(long pos) {
+    return pos + (1L << PENALTY_SHIFT);
+  }
+
+  private int score(long pos) {
+    int total = 0;
+    for (int row = 0; row < numRows; ++row) {
+      int n = count(pos, row);
+      total += n * (n + 1) / 2;
+    }
+    return total - PENALTY_POINTS * penalties(pos);
+  }
+
+  /**
+   * The estimated final score of a position at the search horizon.
+   */
+  private double horizon(long pos) {
+    int open = 0;
+    for (int row = 0; row < numRows; ++row) {
+      open += numCols - 1 - last(pos, row);
+    }
+    return score(pos) + openBoxValue * open;
+  }
+
+  /**
+   * The packed key for the position of the given game.
+   * 
+   * @param model a game with the same board as this solver
+   * @return the position's key
+   */
+  public long key(ReadOnlyQwixxModel model) {
+    if (model instanceof QwixxModel) {
+      // The same layout, kept by the model; drop the phase.
+      return ((QwixxModel) model).canonicalKey() & ((1L << DEPTH_SHIFT) - 1);
+    }
+    long pos = (long) model.timesPassed() << PENALTY_SHIFT;
+    for (int row = 0; row < numRows; ++row) {
+      int count = 0;
+      for (int col = 0; col <= model.lastMarked(row); ++col) {
+        if (model.isMarked(row, col)) {
+          ++count;
+        }
+      }
+      int shift = row * ROW_BITS;
+      pos |= (((long) count << FIELD_BITS) | (model.lastMarked(row) + 1)) << shift;
+    }
+    return pos;
+  }
+
+  //
+  // Search
+  //
+
+  /**
+   * The expected final score of the given game from the start of its next turn
+   * (ignoring the current dice).
+   * 
+   * @param model a game with the same board as this solver
+   * @return the expected final score
+   */
+  public double expectedScore(ReadOnlyQwixxModel model) {
+    return value(key(model), depth, true);
+  }
+
+  /**
+   * The expected final score from {@code pos}, looking {@code depth} turns
+   * ahead.
+   */
+  private double value(long pos, int depth, boolean parallel) {
+    if (penalties(pos) >= maxPenalties) {
+      return score(pos);
+    }
+    if (depth == 0) {
+      return horizon(pos);
+    }
+
+    long key = pos | ((long) depth << DEPTH_SHIFT);
+    double cached = table.get(key);
+    if (!Double.isNaN(cached)) {
+      return cached;
+    }
+
+    IntStream outcomes = IntStream.range(0, whiteOutcomes.length);
+    if (parallel) {
+      outcomes = outcomes.parallel();
+    }
+    double answer = outcomes.mapToDouble(w -> whiteProbability[w] * turnValue(pos, whiteOutcomes[w], depth)).sum();
+    table.put(key, answer);
+    return answer;
+  }
+
+  /**
+   * The expected value of a turn from {@code pos} given the white dice, averaged
+   * over the colored dice.
+   */
+  private double turnValue(long pos, int[] white, int depth) {
+    long[] afterWhite = whiteChoices(pos, white);
+    int choices = (int) afterWhite[0];
+
+    // Passing on the colored dice: a penalty unless the white dice marked a box.
+    double base = Double.NEGATIVE_INFINITY;
+    for (int w = 1; w <= choices; ++w) {
+      long next = w == 1 ? penalize(afterWhite[w]) : afterWhite[w];
+      base = Math.max(base, value(next, depth - 1, false));
+    }
+
+    // best[row][c - 1] is the best value available by marking in that row when
+    // its colored die shows c.
+    double[][] best = new double[numRows][6];
+    for (int row = 0; row < numRows; ++row) {
+      for (int c = 1; c <= 6; ++c) {
+        double b = Double.NEGATIVE_INFINITY;
+        for (int w = 1; w <= choices; ++w) {
+          long state = afterWhite[w];
+          for (int i = 0; i < white.length; ++i) {
+            if (i > 0 && white[i] == white[i - 1]) {
+              continue;
+            }
+            int col = columnOfSum[row][white[i] + c];
+            if (col > last(state, row)) {
+              b = Math.max(b, value(mark(state, row, col), depth - 1, false));
+            }
+          }
+        }
+        best[row][c - 1] = b;
+      }
+    }
+    return expectedMax(base, best);
+  }
+
+  /**
+   * The positions reachable with the white dice. Element 0 is the number of
+   * positions; element 1 is always the position after passing.
+   */
+  private long[] whiteChoices(long pos, int[] white) {
+    long[] answer = new long[2 + numRows * MAX_SUM];
+    int n = 1;
+    answer[n] = pos;
+    int seen = 0;
+    for (int i = 0; i < white.length; ++i) {
+      for (int j = i + 1; j < white.length; ++j) {
+        int sum = white[i] + white[j];
+        if ((seen & (1 << sum)) != 0) {
+          continue;
+        }
+        seen |= 1 << sum;
+        for (int row = 0; row < numRows; ++row) {
+          int col = columnOfSum[row][sum];
+          if (col > last(pos, row)) {
+            answer[++n] = mark(pos, row, col);
+          }
+        }
+      }
+    }
+    answer[0] = n;
+    return answer;
+  }
+
+  /**
+   * E[max(base, X_0, ..., X_{rows-1})] where X_row takes each value in
+   * {@code best[row]} with equal probability, independently.
+   */
+  private static double expectedMax(double base, double[][] best) {
+    int rows = best.length;
+    double[] thresholds = new double[rows * 6 + 1];
+    int n = 0;
+    thresholds[n++] = base;
+    for (double[] row : best) {
+      for (double v : row) {
+        if (v > base) {
+          thresholds[n++] = v;
+        }
+      }
+    }
+    Arrays.sort(thresholds, 0, n);
+
+    // Sum t * (P(max <= t) - P(max < t)) over the distinct thresholds.
+    double answer = 0;
+    double previous = 0;
+    for (int k = 0; k < n; ++k) {
+      if (k > 0 && thresholds[k] == thresholds[k - 1]) {
+        continue;
+      }
+      double t = thresholds[k];
+      double cdf = 1;
+      for (double[] row : best) {
+        int atOrBelow = 0;
+        for (double v : row) {
+          if (v <= t) {
+            ++atOrBelow;
+          }
+        }
+        cdf *= atOrBelow / 6.0;
+      }
+      answer += t * (cdf - previous);
+      previous = cdf;
+    }
+    return answer;
+  }
+
+  //
+  // Playing
+  //
+
+  // from QwixxPolicy
+  public int choose(ReadOnlyQwixxModel model) {
+    long pos = key(model);
+    int[] dice = new int[model.numDice()];
+    model.copyDiceInto(dice);
+
+    int bestChoice = PASS;
+    double bestValue;
+    if (model.canPassWhite()) {
+      // Choose the white box by looking ahead to the best colored choice that
+      // would follow it.
+      bestValue = colorValue(pos, dice, false, null);
+      for (int row = 0; row < numRows; ++row) {
+        long legal = model.legalMoves(row);
+        for (; legal != 0; legal &= legal - 1) {
+          int col = Long.numberOfTrailingZeros(legal);
+          double v = colorValue(mark(pos, row, col), dice, true, null);
+          if (v > bestValue) {
+            bestValue = v;
+            bestChoice = row * numCols + col;
+          }
+        }
+      }
+    } else {
+      int[] choice = { PASS };
+      colorValue(pos, dice, model.markedThisTurn(), choice);
+      bestChoice = choice[0];
+    }
+    return bestChoice;
+  }
+
+  /**
+   * The best value available with the colored dice from {@code pos}. If
+   * {@code choice} is not null, its first element is set to the best box (or
+   * {@code PASS}).
+   */
+  private double colorValue(long pos, int[] dice, boolean marked, int[] choice) {
+    double best = value(marked ? pos : penalize(pos), depth - 1, true);
+    for (int row = 0; row < numRows; ++row) {
+      for (int i = 0; i < numWhiteDice; ++i) {
+        int col = columnOfSum[row][dice[i] + dice[numWhiteDice + row]];
+        if (col > last(pos, row)) {
+          double v = value(mark(pos, row, col), depth - 1, true);
+          if (v > best) {
+            best = v;
+            if (choice != null) {
+              choice[0] = row * numCols + col;
+            }
+          }
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * A fixed-size, lock-free cache from position keys to values. Each slot holds
+   * the key XORed with the value's bits alongside the value's bits, so a slot
+   * torn by concurrent writers fails the key check instead of returning a wrong
+   * value. New entries simply overwrite old ones.
+   */
+  static class TranspositionTable {
+    private final long[] slots;
+    private final int mask;
+
+    TranspositionTable(int bits) {
+      slots = new long[2 << bits];
+      mask = (1 << bits) - 1;
+    }
+
+    private int index(long key) {
+      return ((int) SplitMixDiceSource.mix(key) & mask) << 1;
+    }
+
+    double get(long key) {
+      int i = index(key);
+      long bits = slots[i + 1];
+      return (slots[i] ^ bits) == key ? Double.longBitsToDouble(bits) : Double.NaN;
+    }
+
+    void put(long key, double value) {
+      int i = index(key);
+      long bits = Double.doubleToRawLongBits(value);
+      slots[i + 1] = bits;
+      slots[i] = key ^ bits;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// GameJournal.java
+//
+// Records games of Qwixx in a compact binary file.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends every change made to the games it records to a binary file. Each
+ * event is a one-byte tag followed by its operands:
+ * 
+ * <pre>
+ * NEW         rows cols whiteDice    (a game starts)
+ * ROLL        dice, two per byte     (low nibble first)
+ * SELECT      row col
+ * PASS_WHITE
+ * PASS_COLOR
+ * UNDO                               (the last move was taken back)
+ * REDO                               (the last undone move was made again)
+ * </pre>
+ * 
+ * A standard roll takes 4 bytes and every other move at most 3. Only
+ * successful moves are recorded; {@code JournalReader} replays them.
+ * 
+ * A journal is a {@code QwixxListener}: attach it to a game with
+ * {@code record}. It is not thread-safe; give each thread its own journal.
+ */
+public class GameJournal implements QwixxListener, Closeable {
+
+  static final byte NEW = 1;
+  static final byte ROLL = 2;
+  static final byte SELECT = 3;
+  static final byte PASS_WHITE = 4;
+  static final byte PASS_COLOR = 5;
+  static final byte UNDO = 6;
+  static final byte REDO = 7;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private long events;
+
+  /**
+   * Create (or truncate) a journal file.
+   * 
+   * @param path the file to write
+   * @throws IOException if the file cannot be opened
+   */
+  public GameJournal(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    buffer = ByteBuffer.allocateDirect(1 << 16);
+  }
+
+  /**
+   * Start recording the given game. The game's current board is recorded as a
+   * new game, so it should be at its starting state.
+   * 
+   * @param model the game to record
+   */
+  public void record(QwixxModel model) {
+    gameReset(model);
+    model.addListener(this);
+  }
+
+  /**
+   * The number of events written so far.
+   * 
+   * @return the number of events
+   */
+  public long events() {
+    return events;
+  }
+
+  private ByteBuffer room(int bytes) {
+    if (buffer.remaining() < bytes) {
+      drain();
+    }
+    ++events;
+    return buffer;
+  }
+
+  private void drain() {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void gameReset(ReadOnlyQwixxModel model) {
+    room(4).put(NEW).put((byte) model.numRows()).put((byte) model.numColumns()).put((byte) model.numWhiteDice());
+  }
+
+  @Override
+  public void diceRolled(ReadOnlyQwixxModel model) {
+    int n = model.numDice();
+    ByteBuffer b = room(1 + (n + 1) / 2).put(ROLL);
+    for (int i = 0; i < n; i += 2) {
+      int high = i + 1 < n ? model.die(i + 1) : 0;
+      b.put((byte) (model.die(i) | high << 4));
+    }
+  }
+
+  @Override
+  public void boxCrossed(ReadOnlyQwixxModel model, int row, int col) {
+    room(3).put(SELECT).put((byte) row).put((byte) col);
+  }
+
+  @Override
+  public void whitePassed(ReadOnlyQwixxModel model) {
+    room(1).put(PASS_WHITE);
+  }
+
+  @Override
+  public void colorPassed(ReadOnlyQwixxModel model) {
+    room(1).put(PASS_COLOR);
+  }
+
+  @Override
+  public void moveUndone(ReadOnlyQwixxModel model) {
+    room(1).put(UNDO);
+  }
+
+  @Override
+  public void moveRedone(ReadOnlyQwixxModel model) {
+    room(1).put(REDO);
+  }
+
+  /**
+   * Write any buffered events to the file.
+   */
+  public void flush() {
+    drain();
+  }
+
+  @Override
+  public void close() throws IOException {
+    drain();
+    channel.close();
+  }
+}
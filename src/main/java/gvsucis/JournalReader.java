@@ -0,0 +1,241 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// JournalReader.java
+//
+// Replays games recorded by GameJournal.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Streams a journal written by {@code GameJournal} back into
+ * {@code QwixxModel}s. The file is memory-mapped a window at a time, so
+ * journals of any size can be replayed without reading them onto the heap.
+ */
+public class JournalReader implements Closeable {
+
+  // Files are mapped in windows of this size; a new window starts at the
+  // first event that does not fit completely in the current one.
+  private static final long WINDOW = 1L << 30;
+
+  // Replayed games keep this many moves, so journals may undo at most this
+  // far back.
+  static final int UNDO_DEPTH = 1024;
+
+  // The longest possible event: a roll of 255 rows and 255 white dice.
+  private static final int MAX_EVENT = 1 + 255;
+
+  private final FileChannel channel;
+  private final long size;
+  private final long window;
+  private MappedByteBuffer map;
+  private long mapStart;
+
+  /**
+   * Open a journal for reading.
+   * 
+   * @param path the journal file
+   * @throws IOException if the file cannot be opened
+   */
+  public JournalReader(Path path) throws IOException {
+    this(path, WINDOW);
+  }
+
+  // (Tests use a small window to exercise remapping.)
+  JournalReader(Path path, long window) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.size = channel.size();
+    this.window = window;
+    mapAt(0);
+  }
+
+  private void mapAt(long position) throws IOException {
+    mapStart = position;
+    map = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(window, size - position));
+  }
+
+  /**
+   * Whether any events remain, remapping first if the next one might not fit
+   * in the current window.
+   */
+  private boolean hasNext() throws IOException {
+    long position = mapStart + map.position();
+    if (map.remaining() < MAX_EVENT && mapStart + map.limit() < size) {
+      mapAt(position);
+    }
+    return position < size;
+  }
+
+  /**
+   * Rewind to the start of the journal.
+   * 
+   * @throws IOException if the file cannot be mapped
+   */
+  public void rewind() throws IOException {
+    mapAt(0);
+  }
+
+  /**
+   * Replay every game in the journal, from the current position.
+   * 
+   * @param finished called with each game once all of its events have been
+   *                 applied (the model is reused for the next game, so copy
+   *                 anything you need to keep)
+   * @return the number of events replayed
+   * @throws IOException if the file cannot be read
+   */
+  public long replayAll(Consumer<QwixxModel> finished) throws IOException {
+    long events = 0;
+    QwixxModel model = null;
+    int[] dice = null;
+    while (hasNext()) {
+      byte tag = map.get();
+      ++events;
+      if (tag == GameJournal.NEW) {
+        if (model != null) {
+          finished.accept(model);
+        }
+        int rows = map.get() & 0xff;
+        int cols = map.get() & 0xff;
+        int white = map.get() & 0xff;
+        if (model != null && model.numRows() == rows && model.numColumns() == cols && model.numWhiteDice() == white) {
+          model.reset();
+        } else {
+          model = newGame(rows, cols, white);
+          dice = new int[model.numDice()];
+        }
+      } else if (model == null) {
+        throw new IllegalStateException("Journal does not start with a new game.");
+      } else {
+        apply(model, tag, dice);
+      }
+    }
+    if (model != null) {
+      finished.accept(model);
+    }
+    return events;
+  }
+
+  /**
+   * Rebuild a game, or a point within it, from the start of the journal.
+   * 
+   * @param game   the index of the game (0 for the first game in the journal)
+   * @param events the number of moves to apply after the game starts
+   *               ({@code Long.MAX_VALUE} for the whole game)
+   * @return the game
+   * @throws IOException if the file cannot be read
+   */
+  public QwixxModel replay(long game, long events) throws IOException {
+    rewind();
+    long games = -1;
+    QwixxModel model = null;
+    int[] dice = null;
+    int rollBytes = 0;
+    long applied = 0;
+    while (hasNext()) {
+      byte tag = map.get();
+      if (tag == GameJournal.NEW) {
+        if (++games > game) {
+          break;
+        }
+        int rows = map.get() & 0xff;
+        int cols = map.get() & 0xff;
+        int white = map.get() & 0xff;
+        rollBytes = (rows + white + 1) / 2;
+        if (games == game) {
+          model = newGame(rows, cols, white);
+          dice = new int[model.numDice()];
+        }
+      } else if (games < game) {
+        skip(tag, rollBytes);
+      } else if (applied++ < events) {
+        apply(model, tag, dice);
+      } else {
+        break;
+      }
+    }
+    if (model == null) {
+      throw new IllegalArgumentException("The journal has no game " + game);
+    }
+    return model;
+  }
+
+  private static QwixxModel newGame(int rows, int cols, int white) {
+    QwixxModel model = new QwixxModel(rows, cols, white);
+    model.keepHistory(UNDO_DEPTH);
+    return model;
+  }
+
+  private void skip(byte tag, int rollBytes) {
+    switch (tag) {
+    case GameJournal.ROLL:
+      map.position(map.position() + rollBytes);
+      break;
+    case GameJournal.SELECT:
+      map.position(map.position() + 2);
+      break;
+    case GameJournal.PASS_WHITE:
+    case GameJournal.PASS_COLOR:
+    case GameJournal.UNDO:
+    case GameJournal.REDO:
+      break;
+    default:
+      throw new IllegalStateException("Unknown journal event " + tag);
+    }
+  }
+
+  private void apply(QwixxModel model, byte tag, int[] dice) {
+    switch (tag) {
+    case GameJournal.ROLL:
+      for (int i = 0; i < dice.length; i += 2) {
+        int packed = map.get();
+        dice[i] = packed & 0xf;
+        if (i + 1 < dice.length) {
+          dice[i + 1] = (packed >>> 4) & 0xf;
+        }
+      }
+      model.rollDice(dice);
+      break;
+    case GameJournal.SELECT:
+      int row = map.get() & 0xff;
+      int col = map.get() & 0xff;
+      QwixxModel.StatusCode status = model.numberSelected(row, col);
+      if (status != QwixxModel.StatusCode.VALID) {
+        throw new IllegalStateException(String.format("Journaled selection (%d, %d) was %s", row, col, status));
+      }
+      break;
+    case GameJournal.PASS_WHITE:
+      model.passWhite();
+      break;
+    case GameJournal.PASS_COLOR:
+      model.passColor();
+      break;
+    case GameJournal.UNDO:
+      if (!model.undo()) {
+        throw new IllegalStateException("Journal undoes more than " + UNDO_DEPTH + " moves");
+      }
+      break;
+    case GameJournal.REDO:
+      if (!model.redo()) {
+        throw new IllegalStateException("Journal redoes a move that was not undone");
+      }
+      break;
+    default:
+      throw new IllegalStateException("Unknown journal event " + tag);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,169 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// NumberGrid.java
+//
+// The grid of number boxes in the Qwixx view, drawn as a single component.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import javax.swing.*;
+
+/**
+ * Paints every number box itself instead of using one {@code JButton} per box,
+ * so the cost of layout is constant and the cost of painting is proportional
+ * to the area that changed. Clicks are mapped back to (row, column) by
+ * arithmetic.
+ */
+class NumberGrid extends JComponent {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int CELL = 30;
+  private static final int GAP = 5;
+  private static final int MARGIN = 15;
+  private static final int STEP = CELL + GAP;
+
+  private final ReadOnlyQwixxModel model;
+  private final Color[] rowColors;
+
+  // The state of each box as currently drawn, and for each row a column right
+  // of which no box is drawn crossed out, so refresh() can repaint only the
+  // boxes that changed.
+  private final boolean[][] shown;
+  private final int[] shownLast;
+
+  private final List<BiConsumer<Integer, Integer>> listeners = new ArrayList<>();
+
+  /**
+   * Constructor
+   * 
+   * @param model     the game to draw
+   * @param rowColors the background color of each row
+   */
+  NumberGrid(ReadOnlyQwixxModel model, Color[] rowColors) {
+    this.model = model;
+    this.rowColors = rowColors;
+    this.shown = new boolean[model.numRows()][model.numColumns()];
+    this.shownLast = new int[model.numRows()];
+    Arrays.fill(shownLast, -1);
+
+    Dimension size = new Dimension(2 * MARGIN + model.numColumns() * STEP - GAP,
+        2 * MARGIN + model.numRows() * STEP - GAP);
+    setPreferredSize(size);
+    setMinimumSize(size);
+    setOpaque(true);
+
+    addMouseListener(new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        int col = cellAt(e.getX() - MARGIN);
+        int row = cellAt(e.getY() - MARGIN);
+        if (row >= 0 && row < model.numRows() && col >= 0 && col < model.numColumns()) {
+          for (BiConsumer<Integer, Integer> listener : listeners) {
+            listener.accept(row, col);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * The index of the cell containing the given offset from the first cell, or
+   * -1 if the offset falls in a gap or before the first cell.
+   */
+  private static int cellAt(int offset) {
+    if (offset < 0 || offset % STEP >= CELL) {
+      return -1;
+    }
+    return offset / STEP;
+  }
+
+  /**
+   * Adds a listener invoked with the (row, column) of each box clicked.
+   * 
+   * @param listener the listener
+   */
+  void addCellListener(BiConsumer<Integer, Integer> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Repaint the given box.
+   * 
+   * @param row the row of the box
+   * @param col the column of the box
+   */
+  void repaintCell(int row, int col) {
+    shown[row][col] = model.isMarked(row, col);
+    if (shown[row][col]) {
+      shownLast[row] = Math.max(shownLast[row], col);
+    }
+    repaint(MARGIN + col * STEP, MARGIN + row * STEP, CELL, CELL);
+  }
+
+  /**
+   * Repaint every box whose state differs from what is currently drawn. Each
+   * move repaints its own box through {@code repaintCell}; this is for changes
+   * to the whole board (the first drawing, reset, undo and redo). Only the
+   * columns up to the last box crossed out in each row, as drawn or in the
+   * model, are compared, since every box right of both is open in each.
+   */
+  void refresh() {
+    for (int row = 0; row < shown.length; ++row) {
+      int last = Math.max(shownLast[row], model.lastMarked(row));
+      for (int col = 0; col <= last; ++col) {
+        if (shown[row][col] != model.isMarked(row, col)) {
+          repaintCell(row, col);
+        }
+      }
+      shownLast[row] = model.lastMarked(row);
+    }
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    Rectangle clip = g.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, getWidth(), getHeight());
+    }
+    g.setColor(getBackground());
+    g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+    // Only visit the boxes that intersect the clip.
+    int firstCol = Math.max(0, (clip.x - MARGIN) / STEP);
+    int lastCol = Math.min(model.numColumns() - 1, (clip.x + clip.width - MARGIN) / STEP);
+    int firstRow = Math.max(0, (clip.y - MARGIN) / STEP);
+    int lastRow = Math.min(model.numRows() - 1, (clip.y + clip.height - MARGIN) / STEP);
+
+    FontMetrics metrics = g.getFontMetrics();
+    for (int row = firstRow; row <= lastRow; ++row) {
+      for (int col = firstCol; col <= lastCol; ++col) {
+        int x = MARGIN + col * STEP;
+        int y = MARGIN + row * STEP;
+        boolean marked = model.isMarked(row, col);
+        shown[row][col] = marked;
+        if (marked) {
+          shownLast[row] = Math.max(shownLast[row], col);
+        }
+
+        g.setColor(rowColors[row % rowColors.length]);
+        g.fillRect(x, y, CELL, CELL);
+        g.setColor(Color.black);
+        g.drawRect(x, y, CELL - 1, CELL - 1);
+
+        String text = marked ? "X" : Integer.toString(model.numberAt(row, col));
+        g.drawString(text, x + (CELL - metrics.stringWidth(text)) / 2,
+            y + (CELL - metrics.getHeight()) / 2 + metrics.getAscent());
+      }
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// Qwixx.java
+//
+// The program's entry point: a window, or the console with --headless.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Starts Qwixx. This class refers to no AWT or Swing types (the controller
+ * does, if only through its listeners), so a headless run loads none of them.
+ * 
+ * Usage:
+ * 
+ * <pre>
+ * Qwixx                              open a window
+ * Qwixx --headless [console args]    run QwixxConsole instead
+ * </pre>
+ */
+public class Qwixx {
+
+  private Qwixx() {
+  }
+
+  /**
+   * Start the game.
+   * 
+   * @param args nothing, or {@code --headless} followed by console arguments
+   * @throws IOException if a headless game cannot read its input
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0 && args[0].equals("--headless")) {
+      QwixxConsole.main(Arrays.copyOfRange(args, 1, args.length));
+    } else {
+      QwixxController.main(args);
+    }
+  }
+}
@@ -0,0 +1,289 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxBoard.java
+//
+// A sparse, packed score sheet for boards of any size.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.Arrays;
+
+/**
+ * The score sheet of a Qwixx board with any number of rows and columns, for
+ * stress-testing rule variants far beyond the 64 columns {@code QwixxModel}
+ * packs into one word per row.
+ * 
+ * Crossed-out boxes are kept as 64-box words, but only the words that hold at
+ * least one crossed-out box exist: they live in a hash table keyed by row and
+ * word. An empty board of any size costs a few small arrays, each move costs a
+ * constant amount of time, and memory grows with the moves made rather than
+ * with rows times columns. Scores are kept up to date as boxes are crossed out.
+ * 
+ * Readers can copy any rectangle of the board as packed words with
+ * {@code page}, or step through the crossed-out boxes of a row with
+ * {@code nextMarked}; neither ever builds the whole grid.
+ */
+public class QwixxBoard {
+
+  private static final int WORD_BITS = Long.SIZE;
+
+  private final int numRows;
+  private final int numCols;
+  private final int wordsPerRow;
+
+  // The last column crossed out in each row (-1 if none), how many boxes are
+  // crossed out in each row, and the sum of the row scores.
+  private final int[] last;
+  private final int[] counts;
+  private long boardScore;
+
+  // Open addressing with linear probing: keys[i] is 1 + row * wordsPerRow +
+  // word (0 when the slot is empty) and words[i] the boxes crossed out in that
+  // word. Grows when half full.
+  private long[] keys = new long[16];
+  private long[] words = new long[16];
+  private int size;
+
+  /**
+   * Constructor
+   * 
+   * @param numRows the number of rows
+   * @param numCols the number of numbered columns
+   */
+  public QwixxBoard(int numRows, int numCols) {
+    if (numRows < 1 || numCols < 1) {
+      throw new IllegalArgumentException("A board needs at least one row and one column.");
+    }
+    this.numRows = numRows;
+    this.numCols = numCols;
+    this.wordsPerRow = (numCols + WORD_BITS - 1) / WORD_BITS;
+    this.last = new int[numRows];
+    this.counts = new int[numRows];
+    clear();
+  }
+
+  /**
+   * Erase every box. (Keeps the table's capacity, so a simulation can reuse one
+   * board.)
+   */
+  public void clear() {
+    Arrays.fill(last, -1);
+    Arrays.fill(counts, 0);
+    Arrays.fill(keys, 0L);
+    boardScore = 0;
+    size = 0;
+  }
+
+  public int numRows() {
+    return numRows;
+  }
+
+  public int numColumns() {
+    return numCols;
+  }
+
+  /**
+   * The number printed in a box. As in {@code QwixxModel}, the first half of
+   * the rows count up from {@code QwixxModel.MIN_COLUMN}; the rest count down.
+   * 
+   * @param row the row of the box
+   * @param col the column of the box
+   * @return the number
+   */
+  public int numberAt(int row, int col) {
+    return ascending(row) ? QwixxModel.MIN_COLUMN + col : QwixxModel.MIN_COLUMN + numCols - 1 - col;
+  }
+
+  /**
+   * The column of the box printed with the given number in a row.
+   * 
+   * @param row    the row
+   * @param number a number
+   * @return the column, or -1 if no box in the row shows that number
+   */
+  public int columnOf(int row, int number) {
+    int offset = number - QwixxModel.MIN_COLUMN;
+    if (offset < 0 || offset >= numCols) {
+      return -1;
+    }
+    return ascending(row) ? offset : numCols - 1 - offset;
+  }
+
+  private boolean ascending(int row) {
+    return row < (numRows + 1) / 2;
+  }
+
+  public boolean isMarked(int row, int col) {
+    checkBox(row, col);
+    return (word(row, col / WORD_BITS) & (1L << col)) != 0;
+  }
+
+  // Keys are computed from (row, word), so a column off the end of a row would
+  // silently address the next row.
+  private void checkBox(int row, int col) {
+    if (row < 0 || row >= numRows || col < 0 || col >= numCols) {
+      throw new IndexOutOfBoundsException("No box at (" + row + ", " + col + ") on a " + numRows + "x" + numCols
+          + " board.");
+    }
+  }
+
+  /**
+   * The column of the last box crossed out in a row.
+   * 
+   * @param row the row
+   * @return the column, or -1 if none
+   */
+  public int lastMarked(int row) {
+    return last[row];
+  }
+
+  /**
+   * The number of boxes crossed out in a row.
+   * 
+   * @param row the row
+   * @return the number of boxes
+   */
+  public int count(int row) {
+    return counts[row];
+  }
+
+  public long rowScore(int row) {
+    return triangle(counts[row]);
+  }
+
+  public long boardScore() {
+    return boardScore;
+  }
+
+  // 1 + 2 + ... + n
+  private static long triangle(long n) {
+    return n * (n + 1) / 2;
+  }
+
+  /**
+   * Cross out a box, which must lie to the right of the last box crossed out in
+   * its row. (Whether the dice allow it is up to the caller.)
+   * 
+   * @param row the row of the box
+   * @param col the column of the box
+   * @return {@code VALID}, or {@code EXCLUDED} if the box lies at or left of the
+   *         last box crossed out
+   * @throws IndexOutOfBoundsException if there is no such box
+   */
+  public QwixxModel.StatusCode cross(int row, int col) {
+    checkBox(row, col);
+    if (col <= last[row]) {
+      return QwixxModel.StatusCode.EXCLUDED;
+    }
+    long key = key(row, col / WORD_BITS);
+    int slot = find(key);
+    if (keys[slot] == 0) {
+      keys[slot] = key;
+      words[slot] = 1L << col;
+      if (++size * 2 > keys.length) {
+        grow();
+      }
+    } else {
+      words[slot] |= 1L << col;
+    }
+    last[row] = col;
+    boardScore += ++counts[row];
+    return QwixxModel.StatusCode.VALID;
+  }
+
+  /**
+   * The number of 64-box words the board is storing (a measure of its memory,
+   * which is 16 to 32 bytes per word).
+   * 
+   * @return the number of words
+   */
+  public int storedWords() {
+    return size;
+  }
+
+  /**
+   * Copy a rectangle of the board as packed words: for each of
+   * {@code rowCount} rows starting at {@code firstRow}, {@code wordCount}
+   * words starting at word {@code firstWord} (columns {@code 64 * firstWord}
+   * onwards), bit {@code c} of each word set when column {@code 64 * word + c}
+   * is crossed out. Takes time proportional to the size of the page.
+   * 
+   * @param firstRow  the first row
+   * @param rowCount  the number of rows
+   * @param firstWord the first word of each row
+   * @param wordCount the number of words per row
+   * @param dst       where to copy the page, row by row (at least
+   *                  {@code rowCount * wordCount} elements)
+   */
+  public void page(int firstRow, int rowCount, int firstWord, int wordCount, long[] dst) {
+    int i = 0;
+    for (int row = firstRow; row < firstRow + rowCount; ++row) {
+      int lastWord = last[row] / WORD_BITS;
+      for (int w = firstWord; w < firstWord + wordCount; ++w) {
+        dst[i++] = last[row] < 0 || w > lastWord ? 0L : word(row, w);
+      }
+    }
+  }
+
+  /**
+   * The first crossed-out box in a row at or after the given column, so that
+   * readers can stream a row's boxes without scanning its empty columns one at
+   * a time.
+   * 
+   * @param row the row
+   * @param col the column to start from
+   * @return the column of the box, or -1 if there is none
+   */
+  public int nextMarked(int row, int col) {
+    if (col < 0) {
+      col = 0;
+    }
+    if (col > last[row]) {
+      return -1;
+    }
+    int w = col / WORD_BITS;
+    long bits = word(row, w) & (-1L << col);
+    while (bits == 0) {
+      bits = word(row, ++w);
+    }
+    return w * WORD_BITS + Long.numberOfTrailingZeros(bits);
+  }
+
+  private long key(int row, int word) {
+    return 1 + (long) row * wordsPerRow + word;
+  }
+
+  private long word(int row, int word) {
+    if (word >= wordsPerRow) {
+      return 0L;
+    }
+    int slot = find(key(row, word));
+    return keys[slot] == 0 ? 0L : words[slot];
+  }
+
+  // The slot holding the key, or the empty slot where it belongs.
+  private int find(long key) {
+    int mask = keys.length - 1;
+    int slot = (int) SplitMixDiceSource.mix(key) & mask;
+    while (keys[slot] != 0 && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    long[] oldWords = words;
+    keys = new long[2 * oldKeys.length];
+    words = new long[2 * oldWords.length];
+    for (int i = 0; i < oldKeys.length; ++i) {
+      if (oldKeys[i] != 0) {
+        int slot = find(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        words[slot] = oldWords[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,388 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxBoardGame.java
+//
+// The rules of Qwixx played on a sparse board of any size.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.Arrays;
+
+/**
+ * A Qwixx game on a {@code QwixxBoard}, for boards wider than the 64 columns
+ * {@code QwixxModel} supports (or with more rows than it is sensible to pack).
+ * The rules, status codes, listener notifications and flight-recorder events
+ * are the same as {@code QwixxModel}'s; only the storage differs.
+ * 
+ * Two dice sum to at most 12, so whatever the board's size, at most eleven
+ * boxes per row can ever be crossed out. Each roll therefore records the
+ * allowed sums rather than the allowed columns, and {@code nextLegalMove}
+ * looks up the few boxes showing those sums. Nothing a move does depends on
+ * the width of the board, and reading a page of it costs the size of the page.
+ * 
+ * As everywhere, {@code legalMoves(row)} covers only columns 0 to 63; use
+ * {@code nextLegalMove} to find moves further right.
+ */
+public class QwixxBoardGame implements QwixxGame {
+
+  private final QwixxBoard board;
+  private final int numWhiteDice;
+  private final int[] dice;
+  private final DiceSource diceSource;
+
+  // The sums the current dice allow, bit n set for sum n: whiteSums for a pair
+  // of white dice, colorSums[row] for a white die plus that row's colored die.
+  private int whiteSums;
+  private final int[] colorSums;
+
+  // Packed as in QwixxModel, whose static methods also make every change to it.
+  private int turn;
+
+  private final QwixxListeners listeners = new QwixxListeners();
+
+  /**
+   * Constructor
+   * 
+   * @param numRows      the number of rows
+   * @param numCols      the number of numbered columns
+   * @param numWhiteDice the number of white dice (at least 2)
+   * @param diceSource   where {@code rollDice()} gets its rolls
+   */
+  public QwixxBoardGame(int numRows, int numCols, int numWhiteDice, DiceSource diceSource) {
+    if (numWhiteDice < 2) {
+      throw new IllegalArgumentException("A game needs at least two white dice.");
+    }
+    this.board = new QwixxBoard(numRows, numCols);
+    this.numWhiteDice = numWhiteDice;
+    this.dice = new int[numWhiteDice + numRows];
+    this.colorSums = new int[numRows];
+    this.diceSource = diceSource;
+    this.turn = QwixxModel.ROLL;
+  }
+
+  /**
+   * Constructor
+   * 
+   * @param numRows      the number of rows
+   * @param numCols      the number of numbered columns
+   * @param numWhiteDice the number of white dice (at least 2)
+   */
+  public QwixxBoardGame(int numRows, int numCols, int numWhiteDice) {
+    this(numRows, numCols, numWhiteDice, DiceSource.threadLocal());
+  }
+
+  // from QwixxGame
+  public void reset() {
+    board.clear();
+    Arrays.fill(dice, 0);
+    Arrays.fill(colorSums, 0);
+    whiteSums = 0;
+    turn = QwixxModel.ROLL;
+    listeners.gameReset(this);
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numRows() {
+    return board.numRows();
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numColumns() {
+    return board.numColumns();
+  }
+
+  // from ReadOnlyQwixxModel
+  public int minColumn() {
+    return QwixxModel.MIN_COLUMN;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numWhiteDice() {
+    return numWhiteDice;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int timesPassed() {
+    return turn >>> QwixxModel.PENALTY_SHIFT;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int maxPenalties() {
+    return QwixxModel.MAX_PENALTIES;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numDice() {
+    return dice.length;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int die(int i) {
+    return dice[i];
+  }
+
+  // from ReadOnlyQwixxModel
+  public void copyDiceInto(int[] dst) {
+    System.arraycopy(dice, 0, dst, 0, dice.length);
+  }
+
+  // from ReadOnlyQwixxModel
+  public String[] diceValues() {
+    String[] answer = new String[dice.length];
+    for (int i = 0; i < dice.length; ++i) {
+      answer[i] = Integer.toString(dice[i]);
+    }
+    return answer;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numberAt(int row, int col) {
+    return board.numberAt(row, col);
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean isMarked(int row, int col) {
+    return board.isMarked(row, col);
+  }
+
+  // from ReadOnlyQwixxModel
+  public int lastMarked(int row) {
+    return board.lastMarked(row);
+  }
+
+  // The sums the current phase allows in the given row.
+  private int allowedSums(int row) {
+    switch (turn & QwixxModel.PHASE_MASK) {
+    case QwixxModel.WHITE:
+      return whiteSums;
+    case QwixxModel.COLOR:
+      return colorSums[row];
+    default:
+      return 0;
+    }
+  }
+
+  // from ReadOnlyQwixxModel
+  public long legalMoves(int row) {
+    long legal = 0;
+    for (int col = nextLegalMove(row, 0); col >= 0 && col < Long.SIZE; col = nextLegalMove(row, col + 1)) {
+      legal |= 1L << col;
+    }
+    return legal;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int nextLegalMove(int row, int from) {
+    int first = Math.max(from, board.lastMarked(row) + 1);
+    int best = -1;
+    for (int sums = allowedSums(row); sums != 0; sums &= sums - 1) {
+      int col = board.columnOf(row, Integer.numberOfTrailingZeros(sums));
+      if (col >= first && (best < 0 || col < best)) {
+        best = col;
+      }
+    }
+    return best;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int rowScore(int row) {
+    return Math.toIntExact(board.rowScore(row));
+  }
+
+  // from ReadOnlyQwixxModel
+  public int penaltyScore() {
+    return QwixxModel.PENALTY_POINTS * timesPassed();
+  }
+
+  // from ReadOnlyQwixxModel
+  public int totalScore() {
+    return Math.toIntExact(board.boardScore()) - penaltyScore();
+  }
+
+  // from ReadOnlyQwixxModel
+  public String[][] numberValues() {
+    return numberValues(0, numRows());
+  }
+
+  // from ReadOnlyQwixxModel
+  public String[][] numberValues(int firstRow, int rowCount) {
+    String[][] answer = new String[rowCount][numColumns()];
+    for (int i = 0; i < rowCount; ++i) {
+      int row = firstRow + i;
+      for (int col = 0; col < numColumns(); ++col) {
+        answer[i][col] = Integer.toString(numberAt(row, col));
+      }
+      for (int col = board.nextMarked(row, 0); col >= 0; col = board.nextMarked(row, col + 1)) {
+        answer[i][col] = "X";
+      }
+    }
+    return answer;
+  }
+
+  // from ReadOnlyQwixxModel
+  public String[] scoreValues() {
+    int numRows = numRows();
+    String[] answer = new String[numRows + 2];
+    for (int row = 0; row < numRows; ++row) {
+      answer[row] = Integer.toString(rowScore(row));
+    }
+    answer[numRows] = Integer.toString(penaltyScore());
+    answer[numRows + 1] = Integer.toString(totalScore());
+    return answer;
+  }
+
+  /**
+   * Copy a rectangle of the board as packed words (see
+   * {@code QwixxBoard.page}).
+   * 
+   * @param firstRow  the first row
+   * @param rowCount  the number of rows
+   * @param firstWord the first word of each row
+   * @param wordCount the number of words per row
+   * @param dst       where to copy the page
+   */
+  public void page(int firstRow, int rowCount, int firstWord, int wordCount, long[] dst) {
+    board.page(firstRow, rowCount, firstWord, wordCount, dst);
+  }
+
+  /**
+   * The first crossed-out box in a row at or after the given column.
+   * 
+   * @param row the row
+   * @param col the column to start from
+   * @return the column of the box, or -1 if there is none
+   */
+  public int nextMarked(int row, int col) {
+    return board.nextMarked(row, col);
+  }
+
+  /**
+   * The number of 64-box words the board is storing.
+   * 
+   * @return the number of words
+   */
+  public int storedWords() {
+    return board.storedWords();
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean canRoll() {
+    return (turn & QwixxModel.PHASE_MASK) == QwixxModel.ROLL && !gameOver();
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean canSelect() {
+    return (turn & QwixxModel.PHASE_MASK) != QwixxModel.ROLL;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean canPassWhite() {
+    return (turn & QwixxModel.PHASE_MASK) == QwixxModel.WHITE;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean canPassColor() {
+    return (turn & QwixxModel.PHASE_MASK) == QwixxModel.COLOR;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean markedThisTurn() {
+    return (turn & QwixxModel.MARKED) != 0;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean gameOver() {
+    return turn >>> QwixxModel.PENALTY_SHIFT >= QwixxModel.MAX_PENALTIES;
+  }
+
+  // from ReadOnlyQwixxModel
+  public String statusMessage() {
+    return QwixxModel.statusMessage(turn);
+  }
+
+  // from QwixxGame
+  public void rollDice(int[] values) {
+    System.arraycopy(values, 0, dice, 0, dice.length);
+    diceRolled();
+  }
+
+  // from QwixxGame
+  public void rollDice() {
+    diceSource.roll(dice);
+    diceRolled();
+  }
+
+  private void diceRolled() {
+    int white = 0;
+    for (int i = 0; i < numWhiteDice; ++i) {
+      for (int j = i + 1; j < numWhiteDice; ++j) {
+        white |= 1 << (dice[i] + dice[j]);
+      }
+    }
+    whiteSums = white;
+    for (int row = 0; row < colorSums.length; ++row) {
+      int color = dice[numWhiteDice + row];
+      int allowed = 0;
+      for (int i = 0; i < numWhiteDice; ++i) {
+        allowed |= 1 << (dice[i] + color);
+      }
+      colorSums[row] = allowed;
+    }
+    turn = QwixxModel.rolled(turn);
+    listeners.diceRolled(this);
+    QwixxEvents.rolled();
+  }
+
+  // from QwixxGame
+  public QwixxModel.StatusCode numberSelected(int row, int col) {
+    QwixxModel.StatusCode status = select(row, col);
+    QwixxEvents.selected(row, col, status);
+    return status;
+  }
+
+  private QwixxModel.StatusCode select(int row, int col) {
+    int phase = turn & QwixxModel.PHASE_MASK;
+    if (phase == QwixxModel.ROLL) {
+      return QwixxModel.StatusCode.MUST_ROLL;
+    }
+
+    int number = numberAt(row, col);
+    if (number > QwixxModel.MAX_SUM || (allowedSums(row) & (1 << number)) == 0) {
+      return QwixxModel.StatusCode.DICE_DONT_MATCH;
+    }
+    if (board.cross(row, col) != QwixxModel.StatusCode.VALID) {
+      return QwixxModel.StatusCode.EXCLUDED;
+    }
+
+    turn = QwixxModel.crossed(turn);
+    listeners.boxCrossed(this, row, col);
+    return QwixxModel.StatusCode.VALID;
+  }
+
+  // from QwixxGame
+  public void passWhite() {
+    turn = QwixxModel.passedWhite(turn);
+    listeners.whitePassed(this);
+    QwixxEvents.passed(true, false);
+  }
+
+  // from QwixxGame
+  public void passColor() {
+    boolean penalty = (turn & QwixxModel.MARKED) == 0;
+    turn = QwixxModel.passedColor(turn);
+    listeners.colorPassed(this, penalty);
+    QwixxEvents.passed(false, penalty);
+  }
+
+  // from ReadOnlyQwixxModel
+  public void addListener(QwixxListener listener) {
+    listeners.add(listener);
+  }
+
+  // from ReadOnlyQwixxModel
+  public void removeListener(QwixxListener listener) {
+    listeners.remove(listener);
+  }
+}
@@ -0,0 +1,152 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxConsole.java
+//
+// A headless controller for Qwixx: plays, scripts or simulates games on the
+// command line.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs Qwixx without a display. Nothing here refers to {@code java.awt} or
+ * {@code javax.swing}, so these classes are never loaded and the program
+ * starts as fast as the JVM does.
+ * 
+ * Commands are those of {@code QwixxServer} (one per line, each answered by
+ * one {@code OK} or {@code ERR} line), plus:
+ * 
+ * <pre>
+ * SHOW    draw the board as text
+ * HELP    list the commands
+ * </pre>
+ * 
+ * Usage:
+ * 
+ * <pre>
+ * QwixxConsole                          read commands from standard input
+ * QwixxConsole ROLL "SELECT 0 3" SHOW   run the given commands
+ * QwixxConsole simulate [games [maxSkip]]
+ * </pre>
+ */
+public class QwixxConsole {
+
+  private static final String HELP = String.join("\n", "NEW [rows cols whiteDice]  start a new game",
+      "ROLL                       roll the dice", "SELECT row col             cross out a box",
+      "PASSWHITE                  pass on the white dice", "PASSCOLOR                  pass on the colored dice",
+      "STATE                      describe the game on one line", "SHOW                       draw the board",
+      "QUIT                       stop");
+
+  private final QwixxServer.Session session = new QwixxServer.Session();
+  private final PrintStream out;
+
+  /**
+   * Constructor
+   * 
+   * @param out where responses are written
+   */
+  public QwixxConsole(PrintStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Run one command, writing its response.
+   * 
+   * @param line the command
+   * @return {@code false} once the user has quit
+   */
+  public boolean execute(String line) {
+    String command = line.trim();
+    if (command.isEmpty() || command.startsWith("#")) {
+      return true;
+    }
+    if (command.equalsIgnoreCase("SHOW")) {
+      show(session.model());
+    } else if (command.equalsIgnoreCase("HELP")) {
+      out.println(HELP);
+    } else {
+      out.println(session.execute(command));
+    }
+    return !session.closed();
+  }
+
+  /**
+   * Run every command from the given input, until it ends or the user quits.
+   * 
+   * @param in the commands, one per line
+   * @throws IOException if the input cannot be read
+   */
+  public void run(Reader in) throws IOException {
+    BufferedReader lines = new BufferedReader(in);
+    String line;
+    while ((line = lines.readLine()) != null && execute(line)) {
+    }
+  }
+
+  /**
+   * Draw the board as text. (Built by hand rather than with
+   * {@code String.format}, whose first use costs more than the rest of startup.)
+   */
+  private void show(ReadOnlyQwixxModel model) {
+    StringBuilder text = new StringBuilder();
+    for (int row = 0; row < model.numRows(); ++row) {
+      for (int col = 0; col < model.numColumns(); ++col) {
+        pad(text, model.isMarked(row, col) ? "X" : Integer.toString(model.numberAt(row, col)), 3);
+      }
+      text.append("  | ");
+      pad(text, Integer.toString(model.rowScore(row)), 3);
+      text.append('\n');
+    }
+
+    text.append("dice:");
+    for (int i = 0; i < model.numDice(); ++i) {
+      text.append(i == model.numWhiteDice() ? " |" : "").append(' ').append(model.die(i));
+    }
+    text.append("\npenalties: ").append(model.timesPassed()).append(" of ").append(model.maxPenalties());
+    text.append("   total: ").append(model.totalScore()).append('\n');
+    text.append(model.statusMessage());
+    out.println(text);
+  }
+
+  private static void pad(StringBuilder text, String value, int width) {
+    for (int i = value.length(); i < width; ++i) {
+      text.append(' ');
+    }
+    text.append(value);
+  }
+
+  /**
+   * Run the console.
+   * 
+   * @param args commands to run, or {@code simulate [games [maxSkip]]}, or
+   *             nothing to read commands from standard input
+   * @throws IOException if standard input cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0 && args[0].equalsIgnoreCase("simulate")) {
+      long games = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+      int maxSkip = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+      System.out.println(new QwixxSimulator(() -> QwixxPolicy.greedy(maxSkip)).run(games));
+      return;
+    }
+
+    QwixxConsole console = new QwixxConsole(System.out);
+    if (args.length > 0) {
+      for (String command : args) {
+        if (!console.execute(command)) {
+          break;
+        }
+      }
+    } else {
+      console.run(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    }
+  }
+}
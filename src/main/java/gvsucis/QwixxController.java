@@ -37,31 +37,43 @@ public class QwixxController {
     view.addRollButtonListener(e -> {
       System.out.println("Roll button clicked."); // delete this once you understand how it works.
       model.rollDice();
-      view.update();
     });
 
     view.addWhiteButtonListener(e -> {
       System.out.println("'Pass white dice' button clicked."); // delete this once you understand how it works.
       model.passWhite();
-      view.update();
     });
 
     view.addColorButtonListener(e -> {
       System.out.println("'Pass colored dice' button clicked."); // delete this once you understand how it works.
       model.passColor();
-      view.update();
     });
 
     view.addNumberButtonListener((row, col) -> {
       System.out.printf("Number box (%d, %d) clicked.\n", row, col);
 
-      // TODO: Call the necessary QwixxModel methods.
+      if (!model.canSelect()) {
+        view.displayError("Roll the dice before selecting a number.");
+        return;
+      }
+
+      QwixxModel.StatusCode status = model.numberSelected(row, col);
+      if (status == QwixxModel.StatusCode.DICE_DONT_MATCH) {
+        view.displayError("The dice don't add up to that number.");
+      } else if (status == QwixxModel.StatusCode.EXCLUDED) {
+        view.displayError("You've already crossed out a number to the right of that one.");
+      }
 
-      // 
-      view.update();
+      // (The view listens to the model, so it updates itself.)
     });
   }
 
+  /**
+   * Start the game in a window. (For a headless game, run {@code Qwixx
+   * --headless} or {@code QwixxConsole}, which never load this class.)
+   * 
+   * @param args ignored
+   */
   public static void main(String[] args) {
 
     QwixxModel model = new QwixxModel();
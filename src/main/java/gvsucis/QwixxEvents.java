@@ -0,0 +1,142 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxEvents.java
+//
+// Flight Recorder events and metrics hooks for model operations.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+/**
+ * The hooks {@code QwixxModel} and {@code QwixxView} call for each operation.
+ * Each hook feeds the installed {@code QwixxMetrics} registry (if any) and,
+ * when Flight Recorder events are turned on, emits an event (if a recording has
+ * enabled it):
+ * 
+ * <pre>
+ * gvsucis.Roll        the dice were rolled
+ * gvsucis.Select      numberSelected was called (with row, column, status)
+ * gvsucis.Pass        the player passed (white or colored, with/without penalty)
+ * gvsucis.ViewUpdate  QwixxView applied a change to the model (with its duration)
+ * </pre>
+ * 
+ * Events are off unless the JVM is started with {@code -Dgvsucis.jfr=true},
+ * as in {@code java -Dgvsucis.jfr=true -XX:StartFlightRecording ...}.
+ * Creating the first event loads and starts much of {@code jdk.jfr} (several
+ * hundred classes and milliseconds), which would swamp the start-up of the
+ * console, so until events are turned on each hook is a field read and
+ * {@code jdk.jfr} is never touched. Once on, an event no recording has enabled
+ * costs little more than its {@code isEnabled()} check.
+ * 
+ * The events themselves are in {@code JfrEvents}, which is built from
+ * {@code src/jfr/java} by the {@code jfr} profile (active on JDK 11 and up) and
+ * looked up by name once events are turned on. Nothing here refers to
+ * {@code jdk.jfr}, so the model builds and runs on Java 8 without it; there,
+ * turning events on does nothing.
+ */
+final class QwixxEvents {
+
+  private QwixxEvents() {
+  }
+
+  /**
+   * The system property that turns Flight Recorder events on.
+   */
+  static final String JFR_PROPERTY = "gvsucis.jfr";
+
+  // Where to emit Flight Recorder events, or null if they are off.
+  private static volatile EventSink jfr = Boolean.getBoolean(JFR_PROPERTY) ? loadJfr() : null;
+
+  // The installed registry, or null. (Set by QwixxMetrics.)
+  static volatile QwixxMetrics metrics;
+
+  /**
+   * Receives the events. (Implemented by {@code JfrEvents}.)
+   */
+  interface EventSink {
+    void rolled();
+
+    void selected(int row, int col, QwixxModel.StatusCode status);
+
+    void passed(boolean white, boolean penalty);
+
+    boolean viewUpdatesEnabled();
+
+    void viewUpdated(long nanos);
+  }
+
+  // The Flight Recorder sink, or null if this build or runtime has none.
+  private static EventSink loadJfr() {
+    try {
+      return Class.forName("gvsucis.JfrEvents").asSubclass(EventSink.class).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * Turn Flight Recorder events on (as {@code -Dgvsucis.jfr=true} does at
+   * start-up) or off.
+   * 
+   * @param on whether to emit events
+   * @return whether events are on ({@code false} if this build or runtime has
+   *         no {@code jdk.jfr})
+   */
+  static boolean enableFlightRecorder(boolean on) {
+    jfr = on ? loadJfr() : null;
+    return jfr != null;
+  }
+
+  static void rolled() {
+    QwixxMetrics m = metrics;
+    if (m != null) {
+      m.rolled();
+    }
+    EventSink sink = jfr;
+    if (sink != null) {
+      sink.rolled();
+    }
+  }
+
+  static void selected(int row, int col, QwixxModel.StatusCode status) {
+    QwixxMetrics m = metrics;
+    if (m != null) {
+      m.selected(status);
+    }
+    EventSink sink = jfr;
+    if (sink != null) {
+      sink.selected(row, col, status);
+    }
+  }
+
+  static void passed(boolean white, boolean penalty) {
+    QwixxMetrics m = metrics;
+    if (m != null) {
+      m.passed(white, penalty);
+    }
+    EventSink sink = jfr;
+    if (sink != null) {
+      sink.passed(white, penalty);
+    }
+  }
+
+  /**
+   * Whether anyone wants view updates timed.
+   */
+  static boolean timingViewUpdates() {
+    EventSink sink = jfr;
+    return metrics != null || sink != null && sink.viewUpdatesEnabled();
+  }
+
+  static void viewUpdated(long nanos) {
+    QwixxMetrics m = metrics;
+    if (m != null) {
+      m.viewUpdated(nanos);
+    }
+    EventSink sink = jfr;
+    if (sink != null) {
+      sink.viewUpdated(nanos);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxGame.java
+//
+// A Qwixx game that can be played, whatever stores its board.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+/**
+ * The moves of a Qwixx game. {@code QwixxModel} packs each row into one word
+ * and so tops out at 64 columns; {@code QwixxBoardGame} plays the same rules on
+ * a sparse {@code QwixxBoard} of any size. Policies and the simulator accept
+ * either.
+ */
+public interface QwixxGame extends ReadOnlyQwixxModel {
+
+  /**
+   * Start a new game on the same board.
+   */
+  public void reset();
+
+  /**
+   * Randomly roll the dice.
+   */
+  public void rollDice();
+
+  /**
+   * "Roll" the dice by assigning them the given values.
+   * 
+   * @param values the value of each die: the white dice, then one colored die
+   *               per row
+   */
+  public void rollDice(int[] values);
+
+  /**
+   * Cross out a box, if the dice and the phase of the turn allow it.
+   * 
+   * @param row the row of the box
+   * @param col the index of the column of the box
+   * @return {@code VALID}, or why the box cannot be crossed out
+   */
+  public QwixxModel.StatusCode numberSelected(int row, int col);
+
+  /**
+   * Decline to use the white dice (only while {@code canPassWhite()}).
+   */
+  public void passWhite();
+
+  /**
+   * Decline to use the colored dice (only while {@code canPassColor()}),
+   * taking a penalty unless a box was crossed out this turn.
+   */
+  public void passColor();
+}
@@ -0,0 +1,109 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxListener.java
+//
+// Notifications of changes to a Qwixx game
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+/**
+ * Receives a notification for each change to a {@code QwixxModel}, so that
+ * views, loggers and spectators can apply just that change instead of
+ * re-reading the whole game. Every method does nothing by default; override
+ * the ones you need.
+ * 
+ * Notifications are delivered on the thread that changed the model, after the
+ * change has been made.
+ */
+public interface QwixxListener {
+
+  /**
+   * The dice were rolled.
+   * 
+   * @param model the game (read its new dice with {@code die(i)})
+   */
+  public default void diceRolled(ReadOnlyQwixxModel model) {
+  }
+
+  /**
+   * A box was crossed out.
+   * 
+   * @param model the game
+   * @param row   the row of the box
+   * @param col   the column of the box
+   */
+  public default void boxCrossed(ReadOnlyQwixxModel model, int row, int col) {
+  }
+
+  /**
+   * The player passed on the white dice.
+   * 
+   * @param model the game
+   */
+  public default void whitePassed(ReadOnlyQwixxModel model) {
+  }
+
+  /**
+   * The player passed on the colored dice. (If this costs a penalty,
+   * {@code penaltyTaken} follows.)
+   * 
+   * @param model the game
+   */
+  public default void colorPassed(ReadOnlyQwixxModel model) {
+  }
+
+  /**
+   * The player took a penalty.
+   * 
+   * @param model the game
+   * @param total the number of penalties taken so far
+   */
+  public default void penaltyTaken(ReadOnlyQwixxModel model, int total) {
+  }
+
+  /**
+   * The phase of the turn changed, so {@code canRoll()}, {@code canSelect()},
+   * {@code canPassWhite()}, {@code canPassColor()} and {@code statusMessage()}
+   * may have new values.
+   * 
+   * @param model the game
+   */
+  public default void phaseChanged(ReadOnlyQwixxModel model) {
+  }
+
+  /**
+   * The game ended.
+   * 
+   * @param model the game
+   */
+  public default void gameOver(ReadOnlyQwixxModel model) {
+  }
+
+  /**
+   * The game was reset to its starting state.
+   * 
+   * @param model the game
+   */
+  public default void gameReset(ReadOnlyQwixxModel model) {
+  }
+
+  /**
+   * The most recent move was undone. Any part of the game may have changed
+   * back, so re-read whatever you display.
+   * 
+   * @param model the game
+   */
+  public default void moveUndone(ReadOnlyQwixxModel model) {
+  }
+
+  /**
+   * An undone move was made again. Any part of the game may have changed, so
+   * re-read whatever you display.
+   * 
+   * @param model the game
+   */
+  public default void moveRedone(ReadOnlyQwixxModel model) {
+  }
+}
@@ -0,0 +1,101 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxListeners.java
+//
+// The listeners of one game, and the order in which they are notified.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.Arrays;
+
+/**
+ * The listeners registered with a game. Every game ({@code QwixxModel},
+ * {@code QwixxBoardGame}) notifies through one of these, so each kind of move
+ * sends the same notifications in the same order whatever stores the board.
+ * 
+ * The array is copied on write, so notifying (the common case) needs no
+ * locking and costs nothing when no one is listening. It is volatile so that a
+ * listener added from another thread is seen by the thread playing the game.
+ */
+final class QwixxListeners {
+
+  private volatile QwixxListener[] listeners = new QwixxListener[0];
+
+  synchronized void add(QwixxListener listener) {
+    QwixxListener[] larger = Arrays.copyOf(listeners, listeners.length + 1);
+    larger[listeners.length] = listener;
+    listeners = larger;
+  }
+
+  synchronized void remove(QwixxListener listener) {
+    for (int i = 0; i < listeners.length; ++i) {
+      if (listeners[i] == listener) {
+        QwixxListener[] smaller = new QwixxListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, smaller, 0, i);
+        System.arraycopy(listeners, i + 1, smaller, i, smaller.length - i);
+        listeners = smaller;
+        return;
+      }
+    }
+  }
+
+  void gameReset(ReadOnlyQwixxModel model) {
+    for (QwixxListener listener : listeners) {
+      listener.gameReset(model);
+    }
+  }
+
+  void diceRolled(ReadOnlyQwixxModel model) {
+    for (QwixxListener listener : listeners) {
+      listener.diceRolled(model);
+      listener.phaseChanged(model);
+    }
+  }
+
+  void boxCrossed(ReadOnlyQwixxModel model, int row, int col) {
+    for (QwixxListener listener : listeners) {
+      listener.boxCrossed(model, row, col);
+      listener.phaseChanged(model);
+    }
+  }
+
+  void whitePassed(ReadOnlyQwixxModel model) {
+    for (QwixxListener listener : listeners) {
+      listener.whitePassed(model);
+      listener.phaseChanged(model);
+    }
+  }
+
+  /**
+   * Notify that the player passed on the colored dice.
+   * 
+   * @param model   the game, after the pass
+   * @param penalty whether the pass cost a penalty
+   */
+  void colorPassed(ReadOnlyQwixxModel model, boolean penalty) {
+    for (QwixxListener listener : listeners) {
+      listener.colorPassed(model);
+      if (penalty) {
+        listener.penaltyTaken(model, model.timesPassed());
+      }
+      listener.phaseChanged(model);
+      if (model.gameOver()) {
+        listener.gameOver(model);
+      }
+    }
+  }
+
+  void moveUndone(ReadOnlyQwixxModel model) {
+    for (QwixxListener listener : listeners) {
+      listener.moveUndone(model);
+    }
+  }
+
+  void moveRedone(ReadOnlyQwixxModel model) {
+    for (QwixxListener listener : listeners) {
+      listener.moveRedone(model);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxLoadGenerator.java
+//
+// Drives a QwixxServer with many concurrent clients and reports moves/second.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opens {@code clients} connections to a {@code QwixxServer}, and on each one
+ * plays games back to back for a fixed time: roll, ask for the state, cross out
+ * the leftmost legal box or pass. Every command sent counts as one move.
+ */
+public class QwixxLoadGenerator {
+
+  private final String host;
+  private final int port;
+  private final LongAdder moves = new LongAdder();
+  private final LongAdder games = new LongAdder();
+
+  /**
+   * Constructor
+   * 
+   * @param host the server's host
+   * @param port the server's port
+   */
+  public QwixxLoadGenerator(String host, int port) {
+    this.host = host;
+    this.port = port;
+  }
+
+  public long moves() {
+    return moves.sum();
+  }
+
+  public long games() {
+    return games.sum();
+  }
+
+  /**
+   * Run {@code clients} clients until {@code millis} milliseconds have passed.
+   * 
+   * @param clients the number of concurrent connections
+   * @param millis  how long to run
+   * @throws InterruptedException if interrupted while waiting for the clients
+   */
+  public void run(int clients, long millis) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + millis;
+    CountDownLatch done = new CountDownLatch(clients);
+    ExecutorService executor = QwixxServer.newSessionExecutor();
+    for (int i = 0; i < clients; ++i) {
+      executor.execute(() -> {
+        try {
+          client(deadline);
+        } catch (IOException e) {
+          System.err.println("Client failed: " + e.getMessage());
+        } finally {
+          done.countDown();
+        }
+      });
+    }
+    done.await();
+    executor.shutdown();
+  }
+
+  private void client(long deadline) throws IOException {
+    try (Socket socket = new Socket(host, port);
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+      socket.setTcpNoDelay(true);
+      while (System.currentTimeMillis() < deadline) {
+        // Each move is pipelined with the STATE request that follows it, so a
+        // move costs one round trip.
+        String[] state = send(out, in, "NEW", "STATE").split(" ");
+        while (true) {
+          String phase = state[1];
+          if (phase.equals("OVER")) {
+            games.increment();
+            break;
+          } else if (phase.equals("ROLL")) {
+            state = send(out, in, "ROLL", "STATE").split(" ");
+            continue;
+          }
+
+          String[] legal = state[4].split(",");
+          String move = phase.equals("WHITE") ? "PASSWHITE" : "PASSCOLOR";
+          for (int row = 0; row < legal.length; ++row) {
+            long mask = Long.parseUnsignedLong(legal[row], 16);
+            if (mask != 0) {
+              move = "SELECT " + row + " " + Long.numberOfTrailingZeros(mask);
+              break;
+            }
+          }
+          state = send(out, in, move, "STATE").split(" ");
+        }
+      }
+      send(out, in, "QUIT");
+    }
+  }
+
+  /**
+   * Send the given commands in one write, and return the reply to the last one.
+   */
+  private String send(Writer out, BufferedReader in, String... commands) throws IOException {
+    for (String command : commands) {
+      out.write(command);
+      out.write('\n');
+    }
+    out.flush();
+
+    String reply = null;
+    for (String command : commands) {
+      reply = in.readLine();
+      if (reply == null || !reply.startsWith("OK")) {
+        throw new IOException("'" + command + "' got " + reply);
+      }
+      moves.increment();
+    }
+    return reply;
+  }
+
+  /**
+   * Run a load test from the command line. With no host, starts a server in
+   * this JVM.
+   * 
+   * @param args [clients [seconds [host port]]]
+   * @throws Exception if the test could not run
+   */
+  public static void main(String[] args) throws Exception {
+    int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+    QwixxServer server = null;
+    String host = "localhost";
+    int port;
+    if (args.length > 3) {
+      host = args[2];
+      port = Integer.parseInt(args[3]);
+    } else {
+      server = new QwixxServer(0);
+      port = server.port();
+    }
+
+    QwixxLoadGenerator load = new QwixxLoadGenerator(host, port);
+    long start = System.nanoTime();
+    load.run(clients, seconds * 1000L);
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%d clients: %d moves, %d games in %.1fs (%.0f moves/s)%n", clients, load.moves(), load.games(),
+        elapsed, load.moves() / elapsed);
+
+    if (server != null) {
+      server.close();
+    }
+  }
+}
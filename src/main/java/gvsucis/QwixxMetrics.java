@@ -0,0 +1,176 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxMetrics.java
+//
+// Optional counters and timers for model operations.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the moves made by every {@code QwixxModel} in the JVM, and times each
+ * change {@code QwixxView} applies to its display. Nothing is counted until
+ * {@code install()} is called; until then each operation pays only for a null
+ * check. Counters are {@code LongAdder}s, so models on many threads can update
+ * them without contending.
+ * 
+ * (Flight Recorder events for the same operations are emitted, whether or not
+ * a registry is installed, when the JVM is started with
+ * {@code -Dgvsucis.jfr=true}; see {@code QwixxEvents}.)
+ */
+public class QwixxMetrics {
+
+  private static final QwixxModel.StatusCode[] STATUSES = QwixxModel.StatusCode.values();
+
+  private final long installed = System.nanoTime();
+  private final LongAdder rolls = new LongAdder();
+  private final LongAdder[] selections = new LongAdder[STATUSES.length];
+  private final LongAdder whitePasses = new LongAdder();
+  private final LongAdder colorPasses = new LongAdder();
+  private final LongAdder penalties = new LongAdder();
+  private final LongAdder viewUpdates = new LongAdder();
+  private final LongAdder viewUpdateNanos = new LongAdder();
+  private final LongAccumulator viewUpdateMaxNanos = new LongAccumulator(Math::max, 0);
+
+  private QwixxMetrics() {
+    for (int i = 0; i < selections.length; ++i) {
+      selections[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Start counting, replacing (and resetting) any registry already installed.
+   * 
+   * @return the new registry
+   */
+  public static QwixxMetrics install() {
+    QwixxMetrics metrics = new QwixxMetrics();
+    QwixxEvents.metrics = metrics;
+    return metrics;
+  }
+
+  /**
+   * Stop counting.
+   */
+  public static void uninstall() {
+    QwixxEvents.metrics = null;
+  }
+
+  /**
+   * The installed registry.
+   * 
+   * @return the registry, or {@code null} if none is installed
+   */
+  public static QwixxMetrics installed() {
+    return QwixxEvents.metrics;
+  }
+
+  void rolled() {
+    rolls.increment();
+  }
+
+  void selected(QwixxModel.StatusCode status) {
+    selections[status.ordinal()].increment();
+  }
+
+  void passed(boolean white, boolean penalty) {
+    (white ? whitePasses : colorPasses).increment();
+    if (penalty) {
+      penalties.increment();
+    }
+  }
+
+  void viewUpdated(long nanos) {
+    viewUpdates.increment();
+    viewUpdateNanos.add(nanos);
+    viewUpdateMaxNanos.accumulate(nanos);
+  }
+
+  public long rolls() {
+    return rolls.sum();
+  }
+
+  /**
+   * The number of calls to {@code numberSelected} that returned the given
+   * status.
+   * 
+   * @param status a status
+   * @return the number of selections
+   */
+  public long selections(QwixxModel.StatusCode status) {
+    return selections[status.ordinal()].sum();
+  }
+
+  public long whitePasses() {
+    return whitePasses.sum();
+  }
+
+  public long colorPasses() {
+    return colorPasses.sum();
+  }
+
+  public long penalties() {
+    return penalties.sum();
+  }
+
+  /**
+   * Every move: rolls, selections (valid or not) and passes.
+   * 
+   * @return the number of moves
+   */
+  public long moves() {
+    long moves = rolls() + whitePasses() + colorPasses();
+    for (LongAdder adder : selections) {
+      moves += adder.sum();
+    }
+    return moves;
+  }
+
+  /**
+   * The fraction of selections that were rejected.
+   * 
+   * @return the invalid-move rate
+   */
+  public double invalidSelectionRate() {
+    long valid = selections(QwixxModel.StatusCode.VALID);
+    long all = 0;
+    for (LongAdder adder : selections) {
+      all += adder.sum();
+    }
+    return all == 0 ? 0 : (double) (all - valid) / all;
+  }
+
+  /**
+   * Moves per second since the registry was installed.
+   * 
+   * @return the rate
+   */
+  public double movesPerSecond() {
+    return moves() * 1e9 / Math.max(1, System.nanoTime() - installed);
+  }
+
+  public long viewUpdates() {
+    return viewUpdates.sum();
+  }
+
+  public double meanViewUpdateMillis() {
+    long count = viewUpdates();
+    return count == 0 ? 0 : viewUpdateNanos.sum() / 1e6 / count;
+  }
+
+  public double maxViewUpdateMillis() {
+    return viewUpdateMaxNanos.get() / 1e6;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d moves (%.0f/s): %d rolls, %d selections (%.1f%% invalid), %d white passes, "
+        + "%d color passes, %d penalties; %d view updates (mean %.3f ms, max %.3f ms)", moves(), movesPerSecond(),
+        rolls(), moves() - rolls() - whitePasses() - colorPasses(), 100 * invalidSelectionRate(), whitePasses(),
+        colorPasses(), penalties(), viewUpdates(), meanViewUpdateMillis(), maxViewUpdateMillis());
+  }
+}
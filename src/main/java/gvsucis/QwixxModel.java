@@ -12,16 +12,18 @@
 
 package gvsucis;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.Random;
 
 /**
  * The game logic for Qwixx
  */
-public class QwixxModel implements ReadOnlyQwixxModel {
+public class QwixxModel implements QwixxGame {
 
-  private final int MAX_PENALTIES = 4;
-  private final int MIN_COLUMN = 2;
+  static final int MAX_PENALTIES = 4;
+  static final int MIN_COLUMN = 2;
 
   public enum StatusCode {
     VALID, // valid move (i.e., can select that number box)
@@ -37,9 +39,99 @@ public class QwixxModel implements ReadOnlyQwixxModel {
   private int numCols;
   private int numWhiteDice;
 
-  // Note: You will need additional instance variables.
+  // The board is a set of bitmasks, one per row: bit c of marks[row] is set
+  // when the box in column c has been crossed out. Because boxes must be
+  // crossed out left to right, the highest set bit is the last box marked.
+  static final int MAX_COLUMNS = Long.SIZE;
+
+  // The phase of the turn, whether a box has been crossed out this turn, and
+  // the number of penalties are packed into a single int: the low two bits hold
+  // the phase, the next bit the "marked" flag, the remaining bits the penalties.
+  // (QwixxSnapshot decodes the same int.)
+  static final int ROLL = 0;
+  static final int WHITE = 1;
+  static final int COLOR = 2;
+  static final int PHASE_MASK = 0x3;
+  static final int MARKED = 0x4;
+  private static final int TURN_MASK = PHASE_MASK | MARKED;
+  static final int PENALTY_SHIFT = 3;
+
+  static final int PENALTY_POINTS = 5;
+
+  private final long[] marks;
+
+  // The score is kept up to date as boxes are crossed out: counts[row] is the
+  // number of boxes crossed out in each row and boardScore the sum of the row
+  // scores. A row with n boxes crossed out scores TRIANGLE[n] = 1 + 2 + ... + n.
+  static final int[] TRIANGLE = new int[MAX_COLUMNS + 1];
+  static {
+    for (int n = 1; n <= MAX_COLUMNS; ++n) {
+      TRIANGLE[n] = TRIANGLE[n - 1] + n;
+    }
+  }
 
-  // 
+  private final int[] counts;
+  private int boardScore;
+
+  // Position hashes, kept up to date as boxes are crossed out (and undone):
+  // boardHash XORs a random key for each box crossed out (Zobrist hashing);
+  // rowsHash XORs a random key for each row's (last box, count) pair, so
+  // positions with the same future share it. The turn's key is XORed in when
+  // a hash is read.
+  private long boardHash;
+  private long rowsHash;
+  private final int[] dice;
+  private int turn;
+
+  // The largest sum of two dice.
+  static final int MAX_SUM = 12;
+
+  // sumColumns[direction][n] has the bit set for the column printed with n in
+  // rows running in that direction (0 = ascending, 1 = descending), or is 0 if
+  // no column shows n. It is filled in once, by the constructor.
+  private final long[][] sumColumns;
+
+  // The columns the current dice allow: whiteColumns[direction] for the white
+  // dice, colorColumns[row] for a white die plus that row's colored die. Both
+  // are computed once per roll so numberSelected is a bit test.
+  private final long[] whiteColumns = new long[2];
+  private final long[] colorColumns;
+
+  private final DiceSource diceSource;
+
+  private final QwixxListeners listeners = new QwixxListeners();
+  private final DiceOdds diceOdds;
+
+  // The latest published snapshot, or null until someone asks for one. Each
+  // change replaces it, sharing whatever parts of the state did not change.
+  private volatile QwixxSnapshot snapshot;
+
+  // The undo history (null until keepHistory is called) is a ring of moves.
+  // Move m occupies slot m & historyMask: history[2 * slot] packs the turn
+  // before the move (low half) and after it (high half); history[2 * slot + 1]
+  // packs the kind of move with its row and column. A roll also keeps the dice
+  // before and after it in rolledFrom and rolledTo. Moves [historyBottom,
+  // historyCursor) can be undone; moves [historyCursor, historyTop) redone.
+  private static final int ROLLED = 1;
+  private static final int CROSSED = 2;
+  private static final int PASSED = 3;
+  private static final int KIND_BITS = 2;
+  private static final int COL_BITS = 6;
+
+  // The layout of canonicalKey().
+  private static final int MAX_KEY_ROWS = 4;
+  private static final int KEY_FIELD_BITS = 6;
+  private static final int KEY_PENALTY_SHIFT = 48;
+  private static final int KEY_TURN_SHIFT = 51;
+  private static final long ZOBRIST_SEED = 0x51a7e6b1d3f0c2a9L;
+
+  private long[] history;
+  private int[] rolledFrom;
+  private int[] rolledTo;
+  private int historyMask;
+  private long historyBottom;
+  private long historyCursor;
+  private long historyTop;
 
   /**
    * Constructor
@@ -47,14 +139,48 @@ public class QwixxModel implements ReadOnlyQwixxModel {
    * @param numRows      the number of rows (a standard game uses 4)
    * @param maxCol       the number of numbered columns (11 for a standard game)
    * @param numWhiteDice the number of white dice used (2 for a standard game)
+   * @param diceSource   where {@code rollDice()} gets its rolls
    */
-  QwixxModel(int numRows, int numCols, int numWhiteDice) {
+  QwixxModel(int numRows, int numCols, int numWhiteDice, DiceSource diceSource) {
+
+    if (numCols > MAX_COLUMNS) {
+      throw new IllegalArgumentException("At most " + MAX_COLUMNS + " columns are supported.");
+    }
 
     this.numRows = numRows;
     this.numCols = numCols;
     this.numWhiteDice = numWhiteDice;
+    this.diceSource = diceSource;
+    this.diceOdds = DiceOdds.forWhiteDice(numWhiteDice);
+
+    marks = new long[numRows];
+    counts = new int[numRows];
+    dice = new int[numWhiteDice + numRows];
+    colorColumns = new long[numRows];
+
+    sumColumns = new long[2][MAX_SUM + 1];
+    for (int col = 0; col < numCols; ++col) {
+      int ascending = MIN_COLUMN + col;
+      int descending = MIN_COLUMN + numCols - 1 - col;
+      if (ascending <= MAX_SUM) {
+        sumColumns[0][ascending] |= 1L << col;
+      }
+      if (descending <= MAX_SUM) {
+        sumColumns[1][descending] |= 1L << col;
+      }
+    }
+    turn = ROLL;
+  }
 
-    // 
+  /**
+   * Constructor
+   * 
+   * @param numRows      the number of rows (a standard game uses 4)
+   * @param maxCol       the number of numbered columns (11 for a standard game)
+   * @param numWhiteDice the number of white dice used (2 for a standard game)
+   */
+  QwixxModel(int numRows, int numCols, int numWhiteDice) {
+    this(numRows, numCols, numWhiteDice, DiceSource.threadLocal());
   }
 
   /**
@@ -64,6 +190,49 @@ public class QwixxModel implements ReadOnlyQwixxModel {
     this(4, 11, 2);
   }
 
+  /**
+   * The probabilities of rolling each number with this game's dice. (Shared by
+   * every game with the same number of white dice.)
+   * 
+   * @return the odds
+   */
+  public DiceOdds diceOdds() {
+    return diceOdds;
+  }
+
+  /**
+   * The probability that a single roll lets the player cross out the given box,
+   * using either the white dice or a white die plus the row's colored die
+   * (ignoring whether the box is still open).
+   * 
+   * @param row the row of the box
+   * @param col the index of the column of the box
+   * @return the probability
+   */
+  public double hitProbability(int row, int col) {
+    return diceOdds.eitherHit(numberAt(row, col));
+  }
+
+  /**
+   * Start a new game on the same board. (This lets simulations reuse a single
+   * model instead of allocating one per game.)
+   */
+  public void reset() {
+    Arrays.fill(marks, 0L);
+    Arrays.fill(counts, 0);
+    boardScore = 0;
+    boardHash = rowsHash = 0;
+    Arrays.fill(dice, 0);
+    Arrays.fill(colorColumns, 0L);
+    Arrays.fill(whiteColumns, 0L);
+    turn = ROLL;
+    historyBottom = historyCursor = historyTop = 0;
+    if (snapshot != null) {
+      snapshot = fullSnapshot();
+    }
+    listeners.gameReset(this);
+  }
+
   // from ReadOnlyQwixxModel
   public int numRows() {
     return numRows;
@@ -86,12 +255,7 @@ public class QwixxModel implements ReadOnlyQwixxModel {
 
   // from ReadOnlyQwixxModel
   public int timesPassed() {
-
-    int timesPassed = 0;
-
-    // 
-
-    return timesPassed;
+    return turn >>> PENALTY_SHIFT;
   }
 
   // from ReadOnlyQwixxModel
@@ -100,109 +264,231 @@ public class QwixxModel implements ReadOnlyQwixxModel {
   }
 
   // from ReadOnlyQwixxModel
-  public String[] diceValues() {
-
-    // Remember: The instance variable that contains the dice values
-    // should have type int. (Don't make it a String just to simplify this method.)
+  public int numDice() {
+    return dice.length;
+  }
 
-    String[] answer = { "0", "0", "0", "0", "0", "0" };
+  // from ReadOnlyQwixxModel
+  public int die(int i) {
+    return dice[i];
+  }
 
-    // 
+  // from ReadOnlyQwixxModel
+  public void copyDiceInto(int[] dst) {
+    System.arraycopy(dice, 0, dst, 0, dice.length);
+  }
 
+  // from ReadOnlyQwixxModel
+  public String[] diceValues() {
+    String[] answer = new String[dice.length];
+    for (int i = 0; i < dice.length; ++i) {
+      answer[i] = Integer.toString(dice[i]);
+    }
     return answer;
   }
 
-  // 
-    
+  // The first half of the rows count up from minColumn(); the remaining rows
+  // count down.
+  private int direction(int row) {
+    return row < (numRows + 1) / 2 ? 0 : 1;
+  }
 
   // from ReadOnlyQwixxModel
-  public String[][] numberValues() {
-
-    // Remember: This method must be read-only. Don't return an instance variable.
-    // Doing so will allow the view to modify the model.
-
-    // Just a dummy set of values to get you started.
-    String[][] answer = { { "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k" },
-        { "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k" },
-        { "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k" },
-        { "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k" } };
+  public int numberAt(int row, int col) {
+    return direction(row) == 0 ? MIN_COLUMN + col : MIN_COLUMN + numCols - 1 - col;
+  }
 
-    // 
+  // from ReadOnlyQwixxModel
+  public boolean isMarked(int row, int col) {
+    return (marks[row] & (1L << col)) != 0;
+  }
 
-    return answer;
+  // from ReadOnlyQwixxModel
+  public int lastMarked(int row) {
+    return (Long.SIZE - 1) - Long.numberOfLeadingZeros(marks[row]);
   }
 
-  // From ReadOnlyQwixxModel
-  public String[] scoreValues() {
+  /**
+   * The columns to the right of the last box crossed out in the given row.
+   */
+  private long open(int row) {
+    long m = marks[row];
+    return m == 0 ? -1L : -(Long.highestOneBit(m) << 1);
+  }
 
-    // Remember: The instance variable that contains the score values
-    // should have type int. (Don't make it a String just to simplify this method.)
+  /**
+   * The boxes in the given row that the white dice would allow, ignoring the
+   * phase of the turn. Bit {@code col} is set for each such box.
+   * 
+   * @param row the row
+   * @return a bitmask of columns
+   */
+  public long whiteMoves(int row) {
+    return whiteColumns[direction(row)] & open(row);
+  }
 
-    // This is just dummy data so the starter code will run.
-    // Remove this.
-    String[] answer = { "8", "6", "7", "5", "3", "fred" };
+  /**
+   * The boxes in the given row that a white die plus the row's colored die would
+   * allow, ignoring the phase of the turn. Bit {@code col} is set for each such
+   * box.
+   * 
+   * @param row the row
+   * @return a bitmask of columns
+   */
+  public long colorMoves(int row) {
+    return colorColumns[row] & open(row);
+  }
 
-    // 
+  // from ReadOnlyQwixxModel
+  public long legalMoves(int row) {
+    switch (turn & PHASE_MASK) {
+    case WHITE:
+      return whiteMoves(row);
+    case COLOR:
+      return colorMoves(row);
+    default:
+      return 0L;
+    }
+  }
 
-    return answer;
+  /**
+   * Fill {@code dst} with {@code legalMoves(row)} for every row.
+   * 
+   * @param dst an array of at least {@code numRows()} elements (reused by the
+   *            caller to avoid allocation)
+   * @return the total number of legal moves
+   */
+  public int legalMoves(long[] dst) {
+    int count = 0;
+    for (int row = 0; row < numRows; ++row) {
+      dst[row] = legalMoves(row);
+      count += Long.bitCount(dst[row]);
+    }
+    return count;
   }
 
   // from ReadOnlyQwixxModel
-  public boolean canRoll() {
-    boolean answer = true;
-
-    // 
+  public int rowScore(int row) {
+    return TRIANGLE[counts[row]];
+  }
 
-    return answer;
+  // from ReadOnlyQwixxModel
+  public int penaltyScore() {
+    return PENALTY_POINTS * timesPassed();
   }
 
   // from ReadOnlyQwixxModel
-  public boolean canSelect() {
+  public int totalScore() {
+    return boardScore - penaltyScore();
+  }
 
-    boolean answer = true;
+  // from ReadOnlyQwixxModel
+  public String[][] numberValues() {
 
-    // 
+    // Remember: This method must be read-only. Don't return an instance variable.
+    // Doing so will allow the view to modify the model.
+    String[][] answer = new String[numRows][numCols];
+    for (int row = 0; row < numRows; ++row) {
+      for (int col = 0; col < numCols; ++col) {
+        answer[row][col] = isMarked(row, col) ? "X" : Integer.toString(numberAt(row, col));
+      }
+    }
+    return answer;
+  }
 
+  // From ReadOnlyQwixxModel
+  public String[] scoreValues() {
+    String[] answer = new String[numRows + 2];
+    for (int row = 0; row < numRows; ++row) {
+      answer[row] = Integer.toString(rowScore(row));
+    }
+    answer[numRows] = Integer.toString(penaltyScore());
+    answer[numRows + 1] = Integer.toString(totalScore());
     return answer;
   }
 
   // from ReadOnlyQwixxModel
-  public boolean canPassWhite() {
-
-    boolean answer = true;
+  public boolean canRoll() {
+    return (turn & PHASE_MASK) == ROLL && !gameOver();
+  }
 
-    // 
+  // from ReadOnlyQwixxModel
+  public boolean canSelect() {
+    return (turn & PHASE_MASK) != ROLL;
+  }
 
-    return answer;
+  // from ReadOnlyQwixxModel
+  public boolean canPassWhite() {
+    return (turn & PHASE_MASK) == WHITE;
   }
 
   // from ReadOnlyQwixxModel
   public boolean canPassColor() {
+    return (turn & PHASE_MASK) == COLOR;
+  }
 
-    boolean answer = true;
-
-    // 
-
-    return answer;
+  // from ReadOnlyQwixxModel
+  public boolean markedThisTurn() {
+    return (turn & MARKED) != 0;
   }
 
   // from ReadOnlyQwixxModel
   public boolean gameOver() {
-    boolean answer = false;
-
-    // 
-
-    return answer;
+    return turn >>> PENALTY_SHIFT >= MAX_PENALTIES;
   }
 
   // from ReadOnlyQwixxModel
   public String statusMessage() {
+    return statusMessage(turn);
+  }
 
-    String status = "The Status";
+  /**
+   * The status message for the given packed turn state.
+   */
+  static String statusMessage(int turn) {
+    if (turn >>> PENALTY_SHIFT >= MAX_PENALTIES) {
+      return "Game over!";
+    }
+    switch (turn & PHASE_MASK) {
+    case WHITE:
+      return "Select a number using the white dice, or pass.";
+    case COLOR:
+      return "Select a number using a white die and a colored die, or take a penalty.";
+    default:
+      return "Roll the dice.";
+    }
+  }
 
-    // 
+  /**
+   * The turn after the dice are rolled: the white-dice phase, with nothing
+   * crossed out yet.
+   */
+  static int rolled(int turn) {
+    return (turn & ~TURN_MASK) | WHITE;
+  }
 
-    return status;
+  /**
+   * The turn after a box is crossed out: the colored-dice phase after the white
+   * dice, otherwise the end of the turn.
+   */
+  static int crossed(int turn) {
+    return (turn & ~TURN_MASK) | MARKED | ((turn & PHASE_MASK) == WHITE ? COLOR : ROLL);
+  }
+
+  /**
+   * The turn after passing on the white dice: the colored-dice phase.
+   */
+  static int passedWhite(int turn) {
+    return (turn & ~PHASE_MASK) | COLOR;
+  }
+
+  /**
+   * The turn after passing on the colored dice: the end of the turn, with a
+   * penalty unless a box was crossed out this turn.
+   */
+  static int passedColor(int turn) {
+    int penalty = (turn & MARKED) == 0 ? 1 << PENALTY_SHIFT : 0;
+    return ((turn & ~TURN_MASK) + penalty) | ROLL;
   }
 
   /**
@@ -213,17 +499,64 @@ public class QwixxModel implements ReadOnlyQwixxModel {
    *               Red, Yellow, Green, Blue
    */
   public void rollDice(int[] values) {
-    // IMPORTANT: My tests will only work if you set the dice correctly. See the
-    // comment above for the proper order.
-
-    // 
+    int before = turn;
+    rememberDice(rolledFrom);
+    System.arraycopy(values, 0, dice, 0, dice.length);
+    diceRolled(before);
   }
 
   /**
    * Randomly roll the dice
    */
   public void rollDice() {
-    // 
+    int before = turn;
+    rememberDice(rolledFrom);
+    diceSource.roll(dice);
+    diceRolled(before);
+  }
+
+  /**
+   * Begin the white-dice phase of the turn with the new dice.
+   */
+  private void diceRolled(int before) {
+    computeColumns();
+    turn = rolled(turn);
+    if (history != null) {
+      rememberDice(rolledTo);
+      remember(before, ROLLED, 0, 0);
+    }
+    QwixxSnapshot s = snapshot;
+    if (s != null) {
+      snapshot = s.rolled(dice.clone(), whiteColumns.clone(), colorColumns.clone(), turn);
+    }
+    listeners.diceRolled(this);
+    QwixxEvents.rolled();
+  }
+
+  /**
+   * Recompute the achievable sums for the current dice.
+   */
+  private void computeColumns() {
+    long ascending = 0;
+    long descending = 0;
+    for (int i = 0; i < numWhiteDice; ++i) {
+      for (int j = i + 1; j < numWhiteDice; ++j) {
+        ascending |= sumColumns[0][dice[i] + dice[j]];
+        descending |= sumColumns[1][dice[i] + dice[j]];
+      }
+    }
+    whiteColumns[0] = ascending;
+    whiteColumns[1] = descending;
+
+    for (int row = 0; row < numRows; ++row) {
+      long[] columns = sumColumns[direction(row)];
+      int color = dice[numWhiteDice + row];
+      long allowed = 0;
+      for (int i = 0; i < numWhiteDice; ++i) {
+        allowed |= columns[dice[i] + color];
+      }
+      colorColumns[row] = allowed;
+    }
   }
 
   /**
@@ -237,15 +570,42 @@ public class QwixxModel implements ReadOnlyQwixxModel {
    * @return a {@code StatusCode} indicating the result of the attempt.
    */
   public StatusCode numberSelected(int row, int col) {
-
-    StatusCode status = StatusCode.VALID;
-
-    // 
-
+    StatusCode status = select(row, col);
+    QwixxEvents.selected(row, col, status);
     return status;
   }
 
-  // 
+  private StatusCode select(int row, int col) {
+    int phase = turn & PHASE_MASK;
+    if (phase == ROLL) {
+      return StatusCode.MUST_ROLL;
+    }
+
+    long allowed = phase == WHITE ? whiteColumns[direction(row)] : colorColumns[row];
+    if ((allowed & (1L << col)) == 0) {
+      return StatusCode.DICE_DONT_MATCH;
+    }
+    if (col <= lastMarked(row)) {
+      return StatusCode.EXCLUDED;
+    }
+
+    int before = turn;
+    rowsHash ^= rowKey(row);
+    marks[row] |= 1L << col;
+    boardScore += ++counts[row];
+    boardHash ^= boxKey(row, col);
+    rowsHash ^= rowKey(row);
+    turn = crossed(turn);
+    if (history != null) {
+      remember(before, CROSSED, row, col);
+    }
+    QwixxSnapshot s = snapshot;
+    if (s != null) {
+      snapshot = s.crossed(marks.clone(), counts.clone(), boardScore, turn);
+    }
+    listeners.boxCrossed(this, row, col);
+    return StatusCode.VALID;
+  }
 
   /**
    * Called when the user elects not to select a number box based on the white
@@ -253,16 +613,386 @@ public class QwixxModel implements ReadOnlyQwixxModel {
    * returns true)
    */
   public void passWhite() {
-    // 
+    int before = turn;
+    turn = passedWhite(turn);
+    if (history != null) {
+      remember(before, PASSED, 0, 0);
+    }
+    QwixxSnapshot s = snapshot;
+    if (s != null) {
+      snapshot = s.passed(turn);
+    }
+    listeners.whitePassed(this);
+    QwixxEvents.passed(true, false);
   }
 
   /**
    * Called when the user elects not to select a number box based on the colored
    * dice. (You may assume that this method is only called when canPassColor
-   * returns true)
+   * returns true) The player takes a penalty unless they crossed out a box using
+   * the white dice this turn.
    */
   public void passColor() {
-    // 
+    int before = turn;
+    boolean penalty = (turn & MARKED) == 0;
+    turn = passedColor(turn);
+    if (history != null) {
+      remember(before, PASSED, 0, 0);
+    }
+    QwixxSnapshot s = snapshot;
+    if (s != null) {
+      snapshot = s.passed(turn);
+    }
+    listeners.colorPassed(this, penalty);
+    QwixxEvents.passed(false, penalty);
+  }
+
+  /**
+   * A 64-bit Zobrist hash of the position: which boxes are crossed out, the
+   * penalties, and the phase of the turn (including whether a box has been
+   * crossed out this turn). The dice are not included. Kept up to date as the
+   * game changes, so this takes constant time. Equal positions have equal
+   * hashes in every model with the same board, and from one run to the next.
+   * 
+   * @return the hash
+   */
+  public long zobristHash() {
+    return boardHash ^ turnKey(turn);
+  }
+
+  /**
+   * A 64-bit hash that merges equivalent positions: it depends only on the last
+   * box crossed out and the number of boxes crossed out in each row, the
+   * penalties and the phase, which between them decide every future move and
+   * score. Positions that differ only in which earlier boxes were skipped hash
+   * alike. Takes constant time.
+   * 
+   * @return the hash
+   */
+  public long canonicalHash() {
+    return rowsHash ^ turnKey(turn);
+  }
+
+  /**
+   * The same information as {@code canonicalHash()}, packed without loss into a
+   * long for boards of at most four rows and 63 columns: 12 bits per row
+   * (the number of boxes crossed out, then the last column crossed out plus
+   * one, 6 bits each), the penalties at bit 48, and the phase and "marked"
+   * flag at bit 51. (The layout {@code ExpectimaxSolver} uses for its keys.)
+   * 
+   * @return the key
+   * @throws IllegalStateException if the board is too large to pack
+   */
+  public long canonicalKey() {
+    if (numRows > MAX_KEY_ROWS || numCols >= MAX_COLUMNS) {
+      throw new IllegalStateException("Canonical keys need at most " + MAX_KEY_ROWS + " rows and "
+          + (MAX_COLUMNS - 1) + " columns.");
+    }
+    long key = (long) timesPassed() << KEY_PENALTY_SHIFT | (long) (turn & TURN_MASK) << KEY_TURN_SHIFT;
+    for (int row = 0; row < numRows; ++row) {
+      key |= ((long) counts[row] << KEY_FIELD_BITS | (lastMarked(row) + 1)) << (row * 2 * KEY_FIELD_BITS);
+    }
+    return key;
+  }
+
+  // A random-looking key for each thing a hash covers: a box, a row's (last
+  // box, count) pair, or a turn state. Derived by mixing a distinct index for
+  // each, so no table is needed and every model agrees.
+  private static long zobristKey(long index) {
+    return SplitMixDiceSource.mix(ZOBRIST_SEED + index * SplitMixDiceSource.GOLDEN_GAMMA);
+  }
+
+  private static long boxKey(int row, int col) {
+    return zobristKey((long) row << COL_BITS | col);
+  }
+
+  // (An empty row has key 0, so an empty board hashes to 0.)
+  private long rowKey(int row) {
+    int count = counts[row];
+    return count == 0 ? 0L : zobristKey(1L << 40 | (long) row << 16 | (lastMarked(row) + 1) << 8 | count);
+  }
+
+  private static long turnKey(int turn) {
+    return zobristKey(2L << 40 | turn);
+  }
+
+  /**
+   * Start keeping the last {@code depth} moves so they can be undone. Making,
+   * undoing and redoing moves then never allocates, so search code can explore
+   * a move in place and take it back. (Discards any history already kept.)
+   * 
+   * @param depth the number of moves to keep (rounded up to a power of two)
+   */
+  public void keepHistory(int depth) {
+    if (depth < 1 || depth > 1 << 24) {
+      throw new IllegalArgumentException("Bad history depth: " + depth);
+    }
+    int capacity = Integer.highestOneBit(depth - 1) << 1;
+    capacity = Math.max(capacity, 1);
+    history = new long[2 * capacity];
+    rolledFrom = new int[capacity * dice.length];
+    rolledTo = new int[capacity * dice.length];
+    historyMask = capacity - 1;
+    historyBottom = historyCursor = historyTop = 0;
+  }
+
+  /**
+   * Copy the dice into the given history array, at the slot of the next move.
+   */
+  private void rememberDice(int[] into) {
+    if (into != null) {
+      System.arraycopy(dice, 0, into, (int) (historyCursor & historyMask) * dice.length, dice.length);
+    }
+  }
+
+  /**
+   * Add a move to the history, forgetting any moves that were undone and (if the
+   * ring is full) the oldest move.
+   */
+  private void remember(int before, int kind, int row, int col) {
+    int slot = (int) (historyCursor & historyMask);
+    history[2 * slot] = (before & 0xffffffffL) | (long) turn << 32;
+    history[2 * slot + 1] = kind | col << KIND_BITS | (long) row << (KIND_BITS + COL_BITS);
+    historyTop = ++historyCursor;
+    if (historyCursor - historyBottom > historyMask + 1) {
+      ++historyBottom;
+    }
+  }
+
+  /**
+   * Whether there is a move to undo.
+   * 
+   * @return {@code true} if {@code undo()} would succeed
+   */
+  public boolean canUndo() {
+    return historyCursor > historyBottom;
+  }
+
+  /**
+   * Whether there is an undone move to redo.
+   * 
+   * @return {@code true} if {@code redo()} would succeed
+   */
+  public boolean canRedo() {
+    return historyTop > historyCursor;
+  }
+
+  /**
+   * Take back the most recent move (a roll, a box crossed out, or a pass),
+   * restoring the game to exactly its state before the move. Requires
+   * {@code keepHistory}.
+   * 
+   * @return {@code false} if there was no move to undo
+   */
+  public boolean undo() {
+    if (!canUndo()) {
+      return false;
+    }
+    int slot = (int) (--historyCursor & historyMask);
+    long move = history[2 * slot + 1];
+    int kind = (int) move & ((1 << KIND_BITS) - 1);
+    if (kind == ROLLED) {
+      System.arraycopy(rolledFrom, slot * dice.length, dice, 0, dice.length);
+      computeColumns();
+    } else if (kind == CROSSED) {
+      int row = (int) (move >>> (KIND_BITS + COL_BITS));
+      int col = (int) (move >>> KIND_BITS) & ((1 << COL_BITS) - 1);
+      rowsHash ^= rowKey(row);
+      marks[row] &= ~(1L << col);
+      boardScore -= counts[row]--;
+      boardHash ^= boxKey(row, col);
+      rowsHash ^= rowKey(row);
+    }
+    turn = (int) history[2 * slot];
+    moveTaken(false);
+    return true;
+  }
+
+  /**
+   * Make the most recently undone move again.
+   * 
+   * @return {@code false} if there was no undone move to redo
+   */
+  public boolean redo() {
+    if (!canRedo()) {
+      return false;
+    }
+    int slot = (int) (historyCursor++ & historyMask);
+    long move = history[2 * slot + 1];
+    int kind = (int) move & ((1 << KIND_BITS) - 1);
+    if (kind == ROLLED) {
+      System.arraycopy(rolledTo, slot * dice.length, dice, 0, dice.length);
+      computeColumns();
+    } else if (kind == CROSSED) {
+      int row = (int) (move >>> (KIND_BITS + COL_BITS));
+      int col = (int) (move >>> KIND_BITS) & ((1 << COL_BITS) - 1);
+      rowsHash ^= rowKey(row);
+      marks[row] |= 1L << col;
+      boardScore += ++counts[row];
+      boardHash ^= boxKey(row, col);
+      rowsHash ^= rowKey(row);
+    }
+    turn = (int) (history[2 * slot] >>> 32);
+    moveTaken(true);
+    return true;
+  }
+
+  /**
+   * Publish the state after an undo or redo.
+   */
+  private void moveTaken(boolean redone) {
+    if (snapshot != null) {
+      snapshot = fullSnapshot();
+    }
+    if (redone) {
+      listeners.moveRedone(this);
+    } else {
+      listeners.moveUndone(this);
+    }
+  }
+
+  /**
+   * An immutable copy of the game as it is now. Any thread may read a snapshot
+   * without locking, and it never changes; call this again for the latest
+   * state.
+   * 
+   * Snapshots are only built once someone asks for one: the first call starts
+   * publishing a new snapshot on every change (each sharing the unchanged
+   * parts of the one before). Make the first call from the thread that changes
+   * the game, or before sharing the game with other threads.
+   * 
+   * @return the latest snapshot
+   */
+  public QwixxSnapshot snapshot() {
+    QwixxSnapshot s = snapshot;
+    if (s == null) {
+      s = snapshot = fullSnapshot();
+    }
+    return s;
+  }
+
+  private QwixxSnapshot fullSnapshot() {
+    return new QwixxSnapshot(numRows, numCols, numWhiteDice, marks.clone(), counts.clone(), boardScore,
+        dice.clone(), whiteColumns.clone(), colorColumns.clone(), turn);
+  }
+
+  /**
+   * Write the game in a compact binary form: the board's shape, the turn, the
+   * dice (two to a byte) and each row's crossed-out boxes (one bit each). A
+   * standard game takes 15 bytes. Listeners, snapshots and the undo history
+   * are not written.
+   * 
+   * @param out where to write the game
+   * @throws IOException              if it cannot be written
+   * @throws IllegalArgumentException if the game has more rows or white dice
+   *                                  than fit in a byte
+   */
+  void writeTo(DataOutput out) throws IOException {
+    checkWritable(numRows, numCols, numWhiteDice);
+    out.writeByte(numRows);
+    out.writeByte(numCols);
+    out.writeByte(numWhiteDice);
+    out.writeByte(turn);
+    for (int i = 0; i < dice.length; i += 2) {
+      out.writeByte(dice[i] | (i + 1 < dice.length ? dice[i + 1] << 4 : 0));
+    }
+    for (int row = 0; row < numRows; ++row) {
+      for (int bit = 0; bit < numCols; bit += Byte.SIZE) {
+        out.writeByte((int) (marks[row] >>> bit));
+      }
+    }
+  }
+
+  /**
+   * Check that {@code writeTo} can write a game of the given shape: each size is
+   * written as one unsigned byte.
+   * 
+   * @param numRows      the number of rows (1 to 255)
+   * @param numCols      the number of columns (1 to 64)
+   * @param numWhiteDice the number of white dice (2 to 255)
+   * @throws IllegalArgumentException if it cannot
+   */
+  static void checkWritable(int numRows, int numCols, int numWhiteDice) {
+    if (!writable(numRows, numCols, numWhiteDice)) {
+      throw new IllegalArgumentException("Cannot store a game with " + numRows + " rows, " + numCols
+          + " columns and " + numWhiteDice + " white dice.");
+    }
+  }
+
+  private static boolean writable(int numRows, int numCols, int numWhiteDice) {
+    return numRows >= 1 && numRows <= 0xff && numCols >= 1 && numCols <= MAX_COLUMNS && numWhiteDice >= 2
+        && numWhiteDice <= 0xff;
+  }
+
+  /**
+   * Read a game written by {@code writeTo}.
+   * 
+   * @param in         where to read the game
+   * @param diceSource where the game's {@code rollDice()} gets its rolls
+   * @return the game
+   * @throws IOException if it cannot be read, or is not a game
+   */
+  static QwixxModel readFrom(DataInput in, DiceSource diceSource) throws IOException {
+    int numRows = in.readUnsignedByte();
+    int numCols = in.readUnsignedByte();
+    int numWhiteDice = in.readUnsignedByte();
+    if (!writable(numRows, numCols, numWhiteDice)) {
+      throw new IOException("Bad board: " + numRows + " rows, " + numCols + " columns, " + numWhiteDice
+          + " white dice.");
+    }
+    QwixxModel model;
+    try {
+      model = new QwixxModel(numRows, numCols, numWhiteDice, diceSource);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Bad board.", e);
+    }
+    int turn = in.readUnsignedByte();
+    if ((turn & PHASE_MASK) > COLOR || turn >>> PENALTY_SHIFT > MAX_PENALTIES) {
+      throw new IOException("Bad turn: " + turn + ".");
+    }
+    model.turn = turn;
+    for (int i = 0; i < model.dice.length; i += 2) {
+      int pair = in.readUnsignedByte();
+      model.dice[i] = pair & 0xf;
+      if (i + 1 < model.dice.length) {
+        model.dice[i + 1] = pair >>> 4;
+      } else if (pair >>> 4 != 0) {
+        throw new IOException("Bad dice.");
+      }
+    }
+    for (int die : model.dice) {
+      if (die > 6) {
+        throw new IOException("Bad dice: " + Arrays.toString(model.dice) + ".");
+      }
+    }
+    for (int row = 0; row < numRows; ++row) {
+      long bits = 0;
+      for (int bit = 0; bit < numCols; bit += Byte.SIZE) {
+        bits |= (long) in.readUnsignedByte() << bit;
+      }
+      if (numCols < MAX_COLUMNS && bits >>> numCols != 0) {
+        throw new IOException("Bad row " + row + ": boxes beyond column " + (numCols - 1) + ".");
+      }
+      model.marks[row] = bits;
+      model.counts[row] = Long.bitCount(bits);
+      model.boardScore += TRIANGLE[model.counts[row]];
+      model.rowsHash ^= model.rowKey(row);
+      for (long m = bits; m != 0; m &= m - 1) {
+        model.boardHash ^= boxKey(row, Long.numberOfTrailingZeros(m));
+      }
+    }
+    model.computeColumns();
+    return model;
+  }
+
+  // from ReadOnlyQwixxModel
+  public void addListener(QwixxListener listener) {
+    listeners.add(listener);
+  }
+
+  // from ReadOnlyQwixxModel
+  public void removeListener(QwixxListener listener) {
+    listeners.remove(listener);
   }
 
 }
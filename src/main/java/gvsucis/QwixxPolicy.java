@@ -0,0 +1,60 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxPolicy.java
+//
+// A decision policy for a computer-controlled Qwixx player
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+/**
+ * Decides which number box (if any) to cross out. A policy is consulted
+ * whenever {@code canSelect()} is true: once for the white dice and once for
+ * the colored dice each turn.
+ * 
+ * Implementations need not be thread-safe: the simulator gives each worker
+ * thread its own instance.
+ */
+public interface QwixxPolicy {
+
+  /**
+   * Returned by {@code choose} to pass instead of crossing out a box.
+   */
+  public static final int PASS = -1;
+
+  /**
+   * Choose a box to cross out.
+   * 
+   * @param model the current state of the game. {@code canPassWhite()}
+   *              distinguishes the white-dice phase from the colored-dice phase.
+   * @return {@code row * model.numColumns() + col} for the box to cross out, or
+   *         {@code PASS}. The box must be one {@code numberSelected} accepts.
+   */
+  public int choose(ReadOnlyQwixxModel model);
+
+  /**
+   * A simple greedy policy: cross out the leftmost legal box that skips at most
+   * {@code maxSkip} unmarked boxes in its row; otherwise pass.
+   * 
+   * @param maxSkip the largest number of boxes the policy is willing to skip
+   * @return the policy
+   */
+  public static QwixxPolicy greedy(int maxSkip) {
+    return model -> {
+      int best = PASS;
+      int bestSkip = maxSkip + 1;
+      for (int row = 0; row < model.numRows(); ++row) {
+        int col = model.nextLegalMove(row, 0);
+        if (col >= 0) {
+          int skip = col - model.lastMarked(row) - 1;
+          if (skip < bestSkip) {
+            best = row * model.numColumns() + col;
+            bestSkip = skip;
+          }
+        }
+      }
+      return best;
+    };
+  }
+}
@@ -0,0 +1,348 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxServer.java
+//
+// Hosts many independent games of Qwixx over a line-based TCP protocol.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A server for many concurrent games. Each connection is one session that owns
+ * one {@code QwixxModel}; it is served by its own thread (a virtual thread when
+ * the JVM supports them), and no session shares any state or lock with another.
+ * 
+ * The protocol is one command per line; each command gets exactly one response
+ * line, which starts with {@code OK} or {@code ERR}. Clients may pipeline
+ * commands.
+ * 
+ * <pre>
+ * NEW [rows cols whiteDice]  start a new game          OK | ERR bad arguments
+ * ROLL                       roll the dice             OK d1 d2 ...
+ * SELECT row col             cross out a box           OK VALID | OK EXCLUDED | ...
+ * PASSWHITE                  pass on the white dice    OK
+ * PASSCOLOR                  pass on the colored dice  OK
+ * STATE                      describe the game         OK phase dice marks legal penalties score
+ * QUIT                       close the session         OK
+ * </pre>
+ * 
+ * In the {@code STATE} response, {@code phase} is one of {@code ROLL},
+ * {@code WHITE}, {@code COLOR} or {@code OVER}; {@code dice} is a
+ * comma-separated list; {@code marks} and {@code legal} are comma-separated
+ * hexadecimal column bitmasks, one per row.
+ * 
+ * {@code NEW} accepts 1 to 16 rows, 1 to 64 columns and 2 to 6 white dice.
+ */
+public class QwixxServer implements Closeable {
+
+  private final ServerSocket serverSocket;
+  private final ExecutorService sessions;
+  private final Thread acceptor;
+
+  // Counters are only touched once per session and read for reporting.
+  private final AtomicLong sessionsStarted = new AtomicLong();
+  private final AtomicLong sessionsActive = new AtomicLong();
+
+  // Open connections, so close() can end every session.
+  private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Start a server listening on the given port.
+   * 
+   * @param port the port to listen on (0 picks a free port)
+   * @throws IOException if the port cannot be opened
+   */
+  public QwixxServer(int port) throws IOException {
+    serverSocket = new ServerSocket(port, 1024);
+    sessions = newSessionExecutor();
+    acceptor = new Thread(this::acceptLoop, "qwixx-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * An executor that runs each task on its own virtual thread when the JVM has
+   * them (Java 21+), and on a pooled platform thread otherwise.
+   * 
+   * @return the executor
+   */
+  static ExecutorService newSessionExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "qwixx-session");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+  }
+
+  /**
+   * The port the server is listening on.
+   * 
+   * @return the port
+   */
+  public int port() {
+    return serverSocket.getLocalPort();
+  }
+
+  public long sessionsStarted() {
+    return sessionsStarted.get();
+  }
+
+  public long sessionsActive() {
+    return sessionsActive.get();
+  }
+
+  private void acceptLoop() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        socket.setTcpNoDelay(true);
+        sessions.execute(() -> serve(socket));
+      } catch (SocketException e) {
+        // The server socket was closed.
+      } catch (IOException e) {
+        System.err.println("Accept failed: " + e.getMessage());
+      }
+    }
+  }
+
+  private void serve(Socket socket) {
+    sessionsStarted.incrementAndGet();
+    sessionsActive.incrementAndGet();
+    sockets.add(socket);
+    try (Socket s = socket;
+        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+        Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+      Session session = new Session();
+      String line;
+      while ((line = in.readLine()) != null) {
+        out.write(session.execute(line));
+        out.write('\n');
+
+        // Flush once the client has stopped pipelining.
+        if (!in.ready()) {
+          out.flush();
+        }
+        if (session.closed) {
+          break;
+        }
+      }
+      out.flush();
+    } catch (IOException e) {
+      // The client went away; nothing to clean up beyond the socket.
+    } finally {
+      sockets.remove(socket);
+      sessionsActive.decrementAndGet();
+    }
+  }
+
+  /**
+   * One client's game. Only the session's own thread touches it.
+   */
+  static class Session {
+
+    // The largest game a client may start with NEW.
+    static final int MAX_ROWS = 16;
+    static final int MAX_WHITE_DICE = 6;
+
+    private QwixxModel model = new QwixxModel();
+    private final StringBuilder reply = new StringBuilder();
+    private boolean closed;
+
+    /**
+     * The session's current game.
+     * 
+     * @return the game
+     */
+    ReadOnlyQwixxModel model() {
+      return model;
+    }
+
+    /**
+     * Whether the client has asked to end the session.
+     * 
+     * @return {@code true} after {@code QUIT}
+     */
+    boolean closed() {
+      return closed;
+    }
+
+    /**
+     * Run one command.
+     * 
+     * @param line the command
+     * @return the response line (without the newline)
+     */
+    String execute(String line) {
+      String[] words = words(line);
+      try {
+        switch (words[0].toUpperCase(Locale.ROOT)) {
+        case "NEW":
+          if (words.length == 1) {
+            model = new QwixxModel();
+            return "OK";
+          }
+          return newGame(words);
+        case "ROLL":
+          if (!model.canRoll()) {
+            return "ERR cannot roll now";
+          }
+          model.rollDice();
+          reply.setLength(0);
+          reply.append("OK");
+          for (int i = 0; i < model.numDice(); ++i) {
+            reply.append(' ').append(model.die(i));
+          }
+          return reply.toString();
+        case "SELECT":
+          int row = Integer.parseInt(words[1]);
+          int col = Integer.parseInt(words[2]);
+          if (row < 0 || row >= model.numRows() || col < 0 || col >= model.numColumns()) {
+            return "ERR no such box";
+          }
+          return "OK " + model.numberSelected(row, col);
+        case "PASSWHITE":
+          if (!model.canPassWhite()) {
+            return "ERR cannot pass white now";
+          }
+          model.passWhite();
+          return "OK";
+        case "PASSCOLOR":
+          if (!model.canPassColor()) {
+            return "ERR cannot pass color now";
+          }
+          model.passColor();
+          return "OK";
+        case "STATE":
+          return state();
+        case "QUIT":
+          closed = true;
+          return "OK";
+        default:
+          return "ERR unknown command " + words[0];
+        }
+      } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+        return "ERR bad arguments";
+      } catch (IllegalArgumentException e) {
+        return "ERR " + e.getMessage();
+      }
+    }
+
+    /**
+     * Start a game of the size the client asked for, if it is within limits.
+     * (The sizes come from the network, so they are checked before anything is
+     * allocated.)
+     */
+    private String newGame(String[] words) {
+      if (words.length != 4) {
+        return "ERR bad arguments";
+      }
+      int rows = Integer.parseInt(words[1]);
+      int cols = Integer.parseInt(words[2]);
+      int white = Integer.parseInt(words[3]);
+      if (rows < 1 || rows > MAX_ROWS || cols < 1 || cols > QwixxModel.MAX_COLUMNS || white < 2
+          || white > MAX_WHITE_DICE) {
+        return "ERR bad arguments";
+      }
+      try {
+        model = new QwixxModel(rows, cols, white);
+      } catch (RuntimeException e) {
+        return "ERR bad arguments";
+      }
+      return "OK";
+    }
+
+    /**
+     * Split a command into words. (A regular expression would do, but compiling
+     * the first one costs more than starting the console.)
+     */
+    private static String[] words(String line) {
+      StringTokenizer tokens = new StringTokenizer(line);
+      String[] words = new String[Math.max(1, tokens.countTokens())];
+      words[0] = "";
+      for (int i = 0; tokens.hasMoreTokens(); ++i) {
+        words[i] = tokens.nextToken();
+      }
+      return words;
+    }
+
+    private String state() {
+      reply.setLength(0);
+      reply.append("OK ");
+      if (model.gameOver()) {
+        reply.append("OVER");
+      } else if (model.canRoll()) {
+        reply.append("ROLL");
+      } else if (model.canPassWhite()) {
+        reply.append("WHITE");
+      } else {
+        reply.append("COLOR");
+      }
+
+      reply.append(' ');
+      for (int i = 0; i < model.numDice(); ++i) {
+        reply.append(i == 0 ? "" : ",").append(model.die(i));
+      }
+
+      reply.append(' ');
+      for (int row = 0; row < model.numRows(); ++row) {
+        long marks = 0;
+        for (int col = 0; col <= model.lastMarked(row); ++col) {
+          marks |= model.isMarked(row, col) ? 1L << col : 0;
+        }
+        reply.append(row == 0 ? "" : ",").append(Long.toHexString(marks));
+      }
+
+      reply.append(' ');
+      for (int row = 0; row < model.numRows(); ++row) {
+        reply.append(row == 0 ? "" : ",").append(Long.toHexString(model.legalMoves(row)));
+      }
+
+      reply.append(' ').append(model.timesPassed()).append(' ').append(model.totalScore());
+      return reply.toString();
+    }
+  }
+
+  /**
+   * Stop accepting connections and close every session.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket socket : sockets) {
+      socket.close();
+    }
+    sessions.shutdownNow();
+  }
+
+  /**
+   * Run a server from the command line.
+   * 
+   * @param args [port]
+   * @throws IOException          if the port cannot be opened
+   * @throws InterruptedException if interrupted while serving
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+    QwixxServer server = new QwixxServer(port);
+    System.out.println("Qwixx server listening on port " + server.port());
+    server.acceptor.join();
+  }
+}
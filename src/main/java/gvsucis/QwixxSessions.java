@@ -0,0 +1,676 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxSessions.java
+//
+// Keeps busy games in memory and idle ones on disk.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Many live games, most of them idle while their players think. At most
+ * {@code maxResident} games are kept in memory as {@code QwixxModel}s; the
+ * rest are hibernated to fixed-size records in the session directory. Each
+ * record holds the game's id and the bytes of {@code QwixxModel.writeTo}, and
+ * each game goes in the file of the smallest records that fit it
+ * ({@code games-32.qwx} for standard games), so every game of one shape shares
+ * one file. A game keeps its record for life: hibernating it again rewrites
+ * the record in place.
+ * 
+ * Games are played through {@code Game} handles. A handle's calls look just
+ * like the model's: if the game is on disk, the call reads it back in first
+ * (a fault), so callers never see the difference. The games in memory are
+ * kept in the order they were last used. A call that leaves more than
+ * {@code maxResident} of them (a new game, or a fault) hibernates the least
+ * recently used ones before it returns, so the limit holds whatever the
+ * callers do. A background thread hibernates games idle for at least
+ * {@code idleMillis}, every {@code idleMillis / 2} milliseconds.
+ * 
+ * Only the game itself is saved: a hibernated game loses its undo history,
+ * and its listeners and snapshot readers should call {@code snapshot()} again
+ * rather than hold on to the model. Hibernated games outlive the sessions
+ * object: a new one on the same directory picks them up.
+ * 
+ * Any number of threads may use the sessions at once; calls on one game are
+ * serialized.
+ */
+public class QwixxSessions implements AutoCloseable {
+
+  private static final String PREFIX = "games-";
+  private static final String SUFFIX = ".qwx";
+
+  // Records are 2^MIN_SHIFT to 2^MAX_SHIFT bytes: the id, then the largest
+  // game writeTo accepts (255 rows of 64 columns and 255 white dice).
+  private static final int ID_BYTES = Long.BYTES;
+  private static final int MIN_SHIFT = 4;
+  private static final int MAX_SHIFT = 12;
+
+  private final Path directory;
+  private final int maxResident;
+  private final long idleNanos;
+  private final DiceSource diceSource;
+
+  private final ConcurrentHashMap<Long, Entry> games = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong();
+  private final AtomicLong hibernations = new AtomicLong();
+  private final AtomicLong faults = new AtomicLong();
+
+  // The games in memory, least recently used first. Never lock an entry while
+  // holding this lock: entries lock it while they hold their own.
+  private final LinkedHashMap<Entry, Boolean> residents = new LinkedHashMap<>(16, 0.75f, true);
+
+  // The record files, indexed by the log of their record size.
+  private final Records[] records = new Records[MAX_SHIFT + 1];
+
+  private final ScheduledExecutorService sweeper;
+
+  /**
+   * One game, in memory or on disk. Its lock guards {@code model},
+   * {@code removed} and its record.
+   */
+  private static final class Entry {
+    final long id;
+    QwixxModel model;
+    boolean removed;
+    volatile long lastUsed;
+
+    // Where the game is hibernated (null and -1 until it first is).
+    Records records;
+    int record = -1;
+
+    Entry(long id, QwixxModel model) {
+      this.id = id;
+      this.model = model;
+      this.lastUsed = System.nanoTime();
+    }
+  }
+
+  /**
+   * A file of fixed-size records. A record holds a game's id plus one (so a
+   * record of zeros is free), then the game as written by
+   * {@code QwixxModel.writeTo}, padded with zeros.
+   */
+  private static final class Records {
+    final FileChannel channel;
+    final int recordBytes;
+
+    // Guarded by this: records past top have never been used, and free holds
+    // the released records below it.
+    private int top;
+    private int[] free = new int[16];
+    private int freeCount;
+
+    Records(Path file, int recordBytes) throws IOException {
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      this.recordBytes = recordBytes;
+      this.top = Math.toIntExact(channel.size() / recordBytes);
+    }
+
+    /**
+     * Read the id in every record, noting the free ones.
+     * 
+     * @return each record's id, or -1 for a free record
+     */
+    synchronized long[] ids() throws IOException {
+      long[] ids = new long[top];
+      int perRead = Math.max(1, (1 << 16) / recordBytes);
+      ByteBuffer buffer = ByteBuffer.allocate(perRead * recordBytes);
+      for (int first = 0; first < top; first += perRead) {
+        int count = Math.min(perRead, top - first);
+        buffer.clear().limit(count * recordBytes);
+        readFully(buffer, first);
+        for (int i = 0; i < count; ++i) {
+          ids[first + i] = buffer.getLong(i * recordBytes) - 1;
+          if (ids[first + i] < 0) {
+            push(first + i);
+          }
+        }
+      }
+      return ids;
+    }
+
+    synchronized int allocate() {
+      return freeCount > 0 ? free[--freeCount] : top++;
+    }
+
+    synchronized void release(int record) throws IOException {
+      writeFully(ByteBuffer.allocate(ID_BYTES), record);
+      push(record);
+    }
+
+    private void push(int record) {
+      if (freeCount == free.length) {
+        free = Arrays.copyOf(free, 2 * freeCount);
+      }
+      free[freeCount++] = record;
+    }
+
+    void write(int record, long id, byte[] game) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(recordBytes);
+      buffer.putLong(id + 1).put(game).clear();
+      writeFully(buffer, record);
+    }
+
+    DataInputStream read(int record, long id) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(recordBytes);
+      readFully(buffer, record);
+      if (buffer.getLong(0) != id + 1) {
+        throw new IOException("Record " + record + " does not hold game " + id + ".");
+      }
+      return new DataInputStream(new ByteArrayInputStream(buffer.array(), ID_BYTES, recordBytes - ID_BYTES));
+    }
+
+    // FileChannel's positional reads and writes may be used by many threads at
+    // once, and may stop short.
+    private void readFully(ByteBuffer buffer, int record) throws IOException {
+      long position = (long) record * recordBytes;
+      while (buffer.hasRemaining()) {
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          throw new EOFException("Record " + record + " is past the end of the file.");
+        }
+        position += read;
+      }
+      buffer.flip();
+    }
+
+    private void writeFully(ByteBuffer buffer, int record) throws IOException {
+      long position = (long) record * recordBytes;
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+    }
+  }
+
+  /**
+   * Constructor. Games already hibernated in the directory are picked up.
+   * 
+   * @param directory   where to hibernate games (created if need be)
+   * @param maxResident the most games to keep in memory
+   * @param idleMillis  how long a game may go unused before it is hibernated
+   * @param diceSource  where the games' {@code rollDice()} gets its rolls
+   * @throws IOException if the directory or its files cannot be read
+   */
+  public QwixxSessions(Path directory, int maxResident, long idleMillis, DiceSource diceSource) throws IOException {
+    if (maxResident < 0 || idleMillis <= 0) {
+      throw new IllegalArgumentException("maxResident must be at least 0 and idleMillis positive.");
+    }
+    this.directory = Files.createDirectories(directory);
+    this.maxResident = maxResident;
+    this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    this.diceSource = diceSource;
+
+    long maxId = -1;
+    for (int shift = MIN_SHIFT; shift <= MAX_SHIFT; ++shift) {
+      if (Files.exists(file(shift))) {
+        Records file = records(shift);
+        long[] ids = file.ids();
+        for (int record = 0; record < ids.length; ++record) {
+          if (ids[record] >= 0) {
+            Entry entry = new Entry(ids[record], null);
+            entry.records = file;
+            entry.record = record;
+            games.put(entry.id, entry);
+            maxId = Math.max(maxId, entry.id);
+          }
+        }
+      }
+    }
+    nextId.set(maxId + 1);
+
+    sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "QwixxSessions sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(1, idleMillis / 2);
+    sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Constructor
+   * 
+   * @param directory   where to hibernate games (created if need be)
+   * @param maxResident the most games to keep in memory
+   * @param idleMillis  how long a game may go unused before it is hibernated
+   * @throws IOException if the directory or its files cannot be read
+   */
+  public QwixxSessions(Path directory, int maxResident, long idleMillis) throws IOException {
+    this(directory, maxResident, idleMillis, DiceSource.threadLocal());
+  }
+
+  /**
+   * Start a new game.
+   * 
+   * @param numRows      the number of rows
+   * @param numCols      the number of columns
+   * @param numWhiteDice the number of white dice
+   * @return the game
+   * @throws IllegalArgumentException if a game of that shape cannot be
+   *                                  hibernated
+   */
+  public Game create(int numRows, int numCols, int numWhiteDice) {
+    QwixxModel.checkWritable(numRows, numCols, numWhiteDice);
+    Entry entry = new Entry(nextId.getAndIncrement(), new QwixxModel(numRows, numCols, numWhiteDice, diceSource));
+    synchronized (entry) {
+      games.put(entry.id, entry);
+      synchronized (residents) {
+        residents.put(entry, Boolean.TRUE);
+      }
+    }
+    trim();
+    return new Game(entry);
+  }
+
+  /**
+   * Start a new game on a standard board.
+   * 
+   * @return the game
+   */
+  public Game create() {
+    return create(4, 11, 2);
+  }
+
+  /**
+   * Find a game, in memory or on disk.
+   * 
+   * @param id the game's id
+   * @return the game, or {@code null} if there is no such game
+   */
+  public Game game(long id) {
+    Entry entry = games.get(id);
+    return entry == null ? null : new Game(entry);
+  }
+
+  /**
+   * End a game, forgetting it in memory and on disk.
+   * 
+   * @param id the game's id
+   * @return whether there was such a game
+   */
+  public boolean remove(long id) {
+    Entry entry = games.remove(id);
+    if (entry == null) {
+      return false;
+    }
+    synchronized (entry) {
+      entry.removed = true;
+      if (entry.model != null) {
+        entry.model = null;
+        synchronized (residents) {
+          residents.remove(entry);
+        }
+      }
+      if (entry.records != null) {
+        try {
+          entry.records.release(entry.record);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        entry.records = null;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The number of live games, in memory or on disk.
+   * 
+   * @return the number of games
+   */
+  public int size() {
+    return games.size();
+  }
+
+  /**
+   * The number of games in memory.
+   * 
+   * @return the number of games
+   */
+  public int resident() {
+    synchronized (residents) {
+      return residents.size();
+    }
+  }
+
+  /**
+   * The number of times a game has been written to disk.
+   * 
+   * @return the number of hibernations
+   */
+  public long hibernations() {
+    return hibernations.get();
+  }
+
+  /**
+   * The number of times a game has been read back from disk.
+   * 
+   * @return the number of faults
+   */
+  public long faults() {
+    return faults.get();
+  }
+
+  /**
+   * Hibernate the games idle for at least {@code idleMillis}. Only they are
+   * looked at: the sweep stops at the first game in memory that has been used
+   * since. (The background thread does this on its own; calling it directly is
+   * for tests.)
+   */
+  public void sweep() {
+    long now = System.nanoTime();
+    List<Candidate> idle = new ArrayList<>();
+    synchronized (residents) {
+      for (Entry entry : residents.keySet()) {
+        long used = entry.lastUsed;
+        if (now - used < idleNanos) {
+          break;
+        }
+        idle.add(new Candidate(entry, used));
+      }
+    }
+    for (Candidate candidate : idle) {
+      hibernate(candidate.entry, candidate.used);
+    }
+  }
+
+  // A game the sweep may hibernate, and when it was last used as of the sweep.
+  private static final class Candidate {
+    final Entry entry;
+    final long used;
+
+    Candidate(Entry entry, long used) {
+      this.entry = entry;
+      this.used = used;
+    }
+  }
+
+  /**
+   * Hibernate every game in memory.
+   */
+  public void hibernateAll() {
+    for (Entry entry : games.values()) {
+      hibernate(entry, entry.lastUsed);
+    }
+  }
+
+  /**
+   * Stop the background thread, hibernate every game and close the files, so
+   * that a new sessions object on the same directory can carry on. Handles on
+   * hibernated games cannot be used afterwards.
+   */
+  @Override
+  public void close() {
+    sweeper.shutdown();
+    try {
+      sweeper.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    hibernateAll();
+    synchronized (records) {
+      for (Records file : records) {
+        if (file != null) {
+          try {
+            file.channel.close();
+          } catch (IOException e) {
+            System.err.println("Could not close " + file.recordBytes + "-byte records: " + e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Hibernate the least recently used games until at most {@code maxResident}
+   * remain in memory. Called after every call that may bring a game into
+   * memory, without holding any entry's lock. (Stops early if a game cannot be
+   * hibernated, or was used while being picked.)
+   */
+  private void trim() {
+    while (true) {
+      Entry eldest;
+      long seen;
+      synchronized (residents) {
+        if (residents.size() <= maxResident) {
+          return;
+        }
+        eldest = residents.keySet().iterator().next();
+        seen = eldest.lastUsed;
+      }
+      if (!hibernate(eldest, seen)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Write a game to its record and drop it from memory, unless it has been
+   * used since {@code seen} (whoever picked it is out of date) or is already on
+   * disk.
+   * 
+   * @return whether the game was hibernated
+   */
+  private boolean hibernate(Entry entry, long seen) {
+    synchronized (entry) {
+      if (entry.model == null || entry.removed || entry.lastUsed != seen) {
+        return false;
+      }
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        entry.model.writeTo(new DataOutputStream(bytes));
+        if (entry.records == null) {
+          entry.records = recordsFor(ID_BYTES + bytes.size());
+          entry.record = entry.records.allocate();
+        }
+        entry.records.write(entry.record, entry.id, bytes.toByteArray());
+      } catch (IOException e) {
+        // Keep the game in memory and try again later.
+        System.err.println("Could not hibernate game " + entry.id + ": " + e);
+        return false;
+      }
+      entry.model = null;
+      synchronized (residents) {
+        residents.remove(entry);
+      }
+      hibernations.incrementAndGet();
+      return true;
+    }
+  }
+
+  /**
+   * The game's model, read back from disk if need be, and mark it the most
+   * recently used. (Call while holding the entry's lock, and call
+   * {@code trim()} after letting go of it.)
+   */
+  private QwixxModel model(Entry entry) {
+    if (entry.removed) {
+      throw new IllegalStateException("Game " + entry.id + " has been removed.");
+    }
+    entry.lastUsed = System.nanoTime();
+    if (entry.model == null) {
+      try (DataInputStream in = entry.records.read(entry.record, entry.id)) {
+        entry.model = QwixxModel.readFrom(in, diceSource);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not read game " + entry.id, e);
+      }
+      faults.incrementAndGet();
+      synchronized (residents) {
+        residents.put(entry, Boolean.TRUE);
+      }
+    } else {
+      synchronized (residents) {
+        residents.get(entry);
+      }
+    }
+    return entry.model;
+  }
+
+  // The file of the smallest records that hold the given number of bytes.
+  private Records recordsFor(int bytes) throws IOException {
+    int shift = Math.max(MIN_SHIFT, Integer.SIZE - Integer.numberOfLeadingZeros(bytes - 1));
+    return records(shift);
+  }
+
+  private Records records(int shift) throws IOException {
+    synchronized (records) {
+      if (records[shift] == null) {
+        records[shift] = new Records(file(shift), 1 << shift);
+      }
+      return records[shift];
+    }
+  }
+
+  private Path file(int shift) {
+    return directory.resolve(PREFIX + (1 << shift) + SUFFIX);
+  }
+
+  /**
+   * A handle on one game. Its methods match {@code QwixxModel}'s, reading the
+   * game back from disk first when it has been hibernated.
+   */
+  public class Game {
+    private final Entry entry;
+
+    private Game(Entry entry) {
+      this.entry = entry;
+    }
+
+    public long id() {
+      return entry.id;
+    }
+
+    /**
+     * Whether the game is in memory right now.
+     * 
+     * @return {@code true} if it is
+     */
+    public boolean isResident() {
+      synchronized (entry) {
+        return entry.model != null;
+      }
+    }
+
+    public void rollDice() {
+      synchronized (entry) {
+        model(entry).rollDice();
+      }
+      trim();
+    }
+
+    public void rollDice(int[] values) {
+      synchronized (entry) {
+        model(entry).rollDice(values);
+      }
+      trim();
+    }
+
+    public QwixxModel.StatusCode numberSelected(int row, int col) {
+      QwixxModel.StatusCode status;
+      synchronized (entry) {
+        status = model(entry).numberSelected(row, col);
+      }
+      trim();
+      return status;
+    }
+
+    public void passWhite() {
+      synchronized (entry) {
+        model(entry).passWhite();
+      }
+      trim();
+    }
+
+    public void passColor() {
+      synchronized (entry) {
+        model(entry).passColor();
+      }
+      trim();
+    }
+
+    /**
+     * Roll the dice and make the turn's decisions with a policy. (Does nothing
+     * once the game is over.)
+     * 
+     * @param policy the policy
+     */
+    public void playTurn(QwixxPolicy policy) {
+      synchronized (entry) {
+        QwixxModel model = model(entry);
+        if (!model.gameOver()) {
+          model.rollDice();
+          QwixxSimulator.playTurn(model, policy);
+        }
+      }
+      trim();
+    }
+
+    /**
+     * An immutable copy of the game as it is now.
+     * 
+     * @return the snapshot
+     */
+    public QwixxSnapshot snapshot() {
+      QwixxSnapshot snapshot;
+      synchronized (entry) {
+        snapshot = model(entry).snapshot();
+      }
+      trim();
+      return snapshot;
+    }
+  }
+
+  /**
+   * Play a turn of many games in a row, with a small number kept in memory,
+   * and report how many were hibernated and faulted back in.
+   * 
+   * @param args [games [maxResident [directory]]]
+   * @throws IOException if the directory cannot be used
+   */
+  public static void main(String[] args) throws IOException {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int maxResident = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+    Path directory = args.length > 2 ? Paths.get(args[2]) : Files.createTempDirectory("qwixx-sessions");
+    QwixxPolicy policy = QwixxPolicy.greedy(1);
+    long start = System.nanoTime();
+    try (QwixxSessions sessions = new QwixxSessions(directory, maxResident, 60_000)) {
+      List<Game> games = new ArrayList<>();
+      for (int g = 0; g < count; ++g) {
+        games.add(sessions.create());
+      }
+      for (int round = 0; round < 3; ++round) {
+        for (Game game : games) {
+          game.playTurn(policy);
+        }
+      }
+      System.out.printf("%d games, %d turns in %.2fs: %d in memory, %d hibernations, %d faults%n",
+          sessions.size(), 3 * count, (System.nanoTime() - start) / 1e9, sessions.resident(),
+          sessions.hibernations(), sessions.faults());
+    }
+  }
+}
@@ -0,0 +1,305 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxSimulator.java
+//
+// Plays complete games of Qwixx headlessly (no Swing) across all cores.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Monte Carlo self-play: plays many games with a given policy and reports the
+ * distribution of final scores. Games are split across a {@code ForkJoinPool};
+ * each leaf task reuses a single game and policy instance. Boards of up to 64
+ * columns are played on a {@code QwixxModel}, wider ones on a
+ * {@code QwixxBoardGame}.
+ * 
+ * Game {@code g} of a run always rolls dice from a stream seeded by the run's
+ * seed and {@code g}, so (given a deterministic policy) a seeded run produces
+ * identical results no matter how many threads play it.
+ */
+public class QwixxSimulator {
+
+  // Number of games a leaf task plays before it stops splitting.
+  private static final int LEAF_GAMES = 4096;
+
+  private final int numRows;
+  private final int numCols;
+  private final int numWhiteDice;
+  private final Supplier<QwixxPolicy> policies;
+
+  /**
+   * Constructor
+   * 
+   * @param numRows      the number of rows
+   * @param numCols      the number of columns
+   * @param numWhiteDice the number of white dice
+   * @param policies     creates one policy per worker
+   */
+  public QwixxSimulator(int numRows, int numCols, int numWhiteDice, Supplier<QwixxPolicy> policies) {
+    this.numRows = numRows;
+    this.numCols = numCols;
+    this.numWhiteDice = numWhiteDice;
+    this.policies = policies;
+  }
+
+  /**
+   * Constructor for a standard board.
+   * 
+   * @param policies creates one policy per worker
+   */
+  public QwixxSimulator(Supplier<QwixxPolicy> policies) {
+    this(4, 11, 2, policies);
+  }
+
+  /**
+   * Play one complete game on the given model, which must be at the start of a
+   * game.
+   * 
+   * @param model  the game to play
+   * @param policy the policy that makes every decision
+   * @return the number of turns (rolls) in the game
+   */
+  public static int playGame(QwixxGame model, QwixxPolicy policy) {
+    int turns = 0;
+    while (!model.gameOver()) {
+      model.rollDice();
+      ++turns;
+      playTurn(model, policy);
+    }
+    return turns;
+  }
+
+  /**
+   * Make every decision for the dice just rolled: the white-dice phase, then
+   * the colored-dice phase.
+   * 
+   * @param model  the game, just after a roll
+   * @param policy the policy that makes the decisions
+   */
+  static void playTurn(QwixxGame model, QwixxPolicy policy) {
+    while (model.canSelect()) {
+      int choice = policy.choose(model);
+      if (choice == QwixxPolicy.PASS) {
+        if (model.canPassWhite()) {
+          model.passWhite();
+        } else {
+          model.passColor();
+        }
+      } else {
+        int row = choice / model.numColumns();
+        int col = choice % model.numColumns();
+        QwixxModel.StatusCode status = model.numberSelected(row, col);
+        if (status != QwixxModel.StatusCode.VALID) {
+          throw new IllegalStateException(
+              String.format("Policy chose (%d, %d), which returned %s", row, col, status));
+        }
+      }
+    }
+  }
+
+  /**
+   * Play {@code games} games using every core.
+   * 
+   * @param games the number of games to play
+   * @return the score distribution and timing
+   */
+  public Result run(long games) {
+    return run(games, ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Play {@code games} reproducible games using every core.
+   * 
+   * @param games the number of games to play
+   * @param seed  the seed for the run's dice
+   * @return the score distribution and timing
+   */
+  public Result run(long games, long seed) {
+    return run(games, seed, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Play {@code games} reproducible games on the given pool.
+   * 
+   * @param games the number of games to play
+   * @param seed  the seed for the run's dice
+   * @param pool  the pool to run on
+   * @return the score distribution and timing
+   */
+  public Result run(long games, long seed, ForkJoinPool pool) {
+    return run(games, seed, pool, null);
+  }
+
+  /**
+   * Play {@code games} reproducible games on the given pool, recording each
+   * finished game in {@code stats} as it ends (so the statistics can be read
+   * while the run is in progress).
+   * 
+   * @param games the number of games to play
+   * @param seed  the seed for the run's dice
+   * @param pool  the pool to run on
+   * @param stats where to record each game, or {@code null}
+   * @return the score distribution and timing
+   */
+  public Result run(long games, long seed, ForkJoinPool pool, QwixxStats stats) {
+    long start = System.nanoTime();
+    long[] histogram = pool.invoke(new Games(seed, 0, games, stats));
+    return new Result(games, System.nanoTime() - start, histogram, minScore());
+  }
+
+  private static int minScore() {
+    return -QwixxModel.PENALTY_POINTS * QwixxModel.MAX_PENALTIES;
+  }
+
+  // Only the boxes numbered up to 12 can ever be crossed out.
+  private int maxScore() {
+    int boxes = Math.min(numCols, QwixxModel.MAX_SUM - QwixxModel.MIN_COLUMN + 1);
+    return numRows * QwixxModel.TRIANGLE[boxes];
+  }
+
+  private QwixxGame newGame(DiceSource dice) {
+    if (numCols <= QwixxModel.MAX_COLUMNS) {
+      return new QwixxModel(numRows, numCols, numWhiteDice, dice);
+    }
+    return new QwixxBoardGame(numRows, numCols, numWhiteDice, dice);
+  }
+
+  private class Games extends RecursiveTask<long[]> {
+    private static final long serialVersionUID = 1L;
+
+    private final long seed;
+    private final long first;
+    private final long games;
+    private final QwixxStats stats;
+
+    Games(long seed, long first, long games, QwixxStats stats) {
+      this.seed = seed;
+      this.first = first;
+      this.games = games;
+      this.stats = stats;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (games > LEAF_GAMES) {
+        long half = games / 2;
+        Games left = new Games(seed, first, half, stats);
+        Games right = new Games(seed, first + half, games - half, stats);
+        left.fork();
+        long[] answer = right.compute();
+        long[] other = left.join();
+        for (int i = 0; i < answer.length; ++i) {
+          answer[i] += other[i];
+        }
+        return answer;
+      }
+
+      int min = minScore();
+      long[] histogram = new long[maxScore() - min + 1];
+      SplitMixDiceSource dice = new SplitMixDiceSource(seed);
+      QwixxGame model = newGame(dice);
+      QwixxPolicy policy = policies.get();
+      QwixxStats.Recorder recorder = stats == null ? null : stats.recorder();
+      for (long g = first; g < first + games; ++g) {
+        dice.seed(seed ^ SplitMixDiceSource.mix(g));
+        model.reset();
+        int turns = playGame(model, policy);
+        ++histogram[model.totalScore() - min];
+        if (recorder != null) {
+          recorder.record(model, turns);
+        }
+      }
+      return histogram;
+    }
+  }
+
+  /**
+   * The outcome of a simulation run.
+   */
+  public static class Result {
+    private final long games;
+    private final long elapsedNanos;
+    private final long[] histogram;
+    private final int minScore;
+
+    Result(long games, long elapsedNanos, long[] histogram, int minScore) {
+      this.games = games;
+      this.elapsedNanos = elapsedNanos;
+      this.histogram = histogram;
+      this.minScore = minScore;
+    }
+
+    public long games() {
+      return games;
+    }
+
+    public double gamesPerSecond() {
+      return games * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * The number of games that ended with the given score.
+     * 
+     * @param score a final score
+     * @return the number of games with that score
+     */
+    public long count(int score) {
+      int i = score - minScore;
+      return i < 0 || i >= histogram.length ? 0 : histogram[i];
+    }
+
+    public double mean() {
+      double sum = 0;
+      for (int i = 0; i < histogram.length; ++i) {
+        sum += (double) histogram[i] * (i + minScore);
+      }
+      return sum / games;
+    }
+
+    /**
+     * The smallest score such that at least fraction {@code q} of games scored
+     * at or below it.
+     * 
+     * @param q a fraction between 0 and 1
+     * @return the score at that quantile
+     */
+    public int quantile(double q) {
+      long target = (long) Math.ceil(q * games);
+      long seen = 0;
+      for (int i = 0; i < histogram.length; ++i) {
+        seen += histogram[i];
+        if (seen >= target && seen > 0) {
+          return i + minScore;
+        }
+      }
+      return histogram.length - 1 + minScore;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d games in %.2fs (%.0f games/s); mean %.2f, min %d, median %d, p90 %d, max %d", games,
+          elapsedNanos / 1e9, gamesPerSecond(), mean(), quantile(0), quantile(0.5), quantile(0.9), quantile(1));
+    }
+  }
+
+  /**
+   * Run a simulation from the command line.
+   * 
+   * @param args [games [maxSkip]]
+   */
+  public static void main(String[] args) {
+    long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+    int maxSkip = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+    QwixxSimulator simulator = new QwixxSimulator(() -> QwixxPolicy.greedy(maxSkip));
+    QwixxStats stats = new QwixxStats(4, 11);
+    System.out.println(simulator.run(games, ThreadLocalRandom.current().nextLong(), ForkJoinPool.commonPool(), stats));
+    System.out.println(stats.snapshot());
+  }
+}
@@ -0,0 +1,246 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxSnapshot.java
+//
+// An immutable copy of a Qwixx game at one moment.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+/**
+ * The state of a {@code QwixxModel} at one moment, published by
+ * {@code QwixxModel.snapshot()}. A snapshot never changes, so renderers,
+ * analyzers and spectators on any thread can read it without locking or
+ * copying, while the game itself moves on.
+ * 
+ * Consecutive snapshots share the parts of the state that did not change: a
+ * roll shares the board with the snapshot before it, crossing out a box shares
+ * the dice, and a pass shares everything but the turn. The arrays are never
+ * modified once a snapshot holds them.
+ */
+public final class QwixxSnapshot implements ReadOnlyQwixxModel {
+
+  private final int numRows;
+  private final int numCols;
+  private final int numWhiteDice;
+
+  // The same representation as QwixxModel: marks and counts change together,
+  // as do the dice and the columns they allow.
+  private final long[] marks;
+  private final int[] counts;
+  private final int boardScore;
+  private final int[] dice;
+  private final long[] whiteColumns;
+  private final long[] colorColumns;
+  private final int turn;
+
+  /**
+   * Constructor. The snapshot takes ownership of the arrays.
+   */
+  QwixxSnapshot(int numRows, int numCols, int numWhiteDice, long[] marks, int[] counts, int boardScore, int[] dice,
+      long[] whiteColumns, long[] colorColumns, int turn) {
+    this.numRows = numRows;
+    this.numCols = numCols;
+    this.numWhiteDice = numWhiteDice;
+    this.marks = marks;
+    this.counts = counts;
+    this.boardScore = boardScore;
+    this.dice = dice;
+    this.whiteColumns = whiteColumns;
+    this.colorColumns = colorColumns;
+    this.turn = turn;
+  }
+
+  /**
+   * This snapshot after the dice were rolled (sharing the board).
+   */
+  QwixxSnapshot rolled(int[] dice, long[] whiteColumns, long[] colorColumns, int turn) {
+    return new QwixxSnapshot(numRows, numCols, numWhiteDice, marks, counts, boardScore, dice, whiteColumns,
+        colorColumns, turn);
+  }
+
+  /**
+   * This snapshot after a box was crossed out (sharing the dice).
+   */
+  QwixxSnapshot crossed(long[] marks, int[] counts, int boardScore, int turn) {
+    return new QwixxSnapshot(numRows, numCols, numWhiteDice, marks, counts, boardScore, dice, whiteColumns,
+        colorColumns, turn);
+  }
+
+  /**
+   * This snapshot after a pass (sharing everything but the turn).
+   */
+  QwixxSnapshot passed(int turn) {
+    return new QwixxSnapshot(numRows, numCols, numWhiteDice, marks, counts, boardScore, dice, whiteColumns,
+        colorColumns, turn);
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numRows() {
+    return numRows;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numColumns() {
+    return numCols;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int minColumn() {
+    return QwixxModel.MIN_COLUMN;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numWhiteDice() {
+    return numWhiteDice;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int maxPenalties() {
+    return QwixxModel.MAX_PENALTIES;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int timesPassed() {
+    return turn >>> QwixxModel.PENALTY_SHIFT;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean canRoll() {
+    return (turn & QwixxModel.PHASE_MASK) == QwixxModel.ROLL && !gameOver();
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean canSelect() {
+    return (turn & QwixxModel.PHASE_MASK) != QwixxModel.ROLL;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean canPassWhite() {
+    return (turn & QwixxModel.PHASE_MASK) == QwixxModel.WHITE;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean canPassColor() {
+    return (turn & QwixxModel.PHASE_MASK) == QwixxModel.COLOR;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean markedThisTurn() {
+    return (turn & QwixxModel.MARKED) != 0;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean gameOver() {
+    return timesPassed() >= QwixxModel.MAX_PENALTIES;
+  }
+
+  // from ReadOnlyQwixxModel
+  public String statusMessage() {
+    return QwixxModel.statusMessage(turn);
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numDice() {
+    return dice.length;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int die(int i) {
+    return dice[i];
+  }
+
+  // from ReadOnlyQwixxModel
+  public void copyDiceInto(int[] dst) {
+    System.arraycopy(dice, 0, dst, 0, dice.length);
+  }
+
+  // from ReadOnlyQwixxModel
+  public String[] diceValues() {
+    String[] answer = new String[dice.length];
+    for (int i = 0; i < dice.length; ++i) {
+      answer[i] = Integer.toString(dice[i]);
+    }
+    return answer;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int numberAt(int row, int col) {
+    return row < (numRows + 1) / 2 ? QwixxModel.MIN_COLUMN + col : QwixxModel.MIN_COLUMN + numCols - 1 - col;
+  }
+
+  // from ReadOnlyQwixxModel
+  public boolean isMarked(int row, int col) {
+    return (marks[row] & (1L << col)) != 0;
+  }
+
+  // from ReadOnlyQwixxModel
+  public int lastMarked(int row) {
+    return (Long.SIZE - 1) - Long.numberOfLeadingZeros(marks[row]);
+  }
+
+  // from ReadOnlyQwixxModel
+  public long legalMoves(int row) {
+    long m = marks[row];
+    long open = m == 0 ? -1L : -(Long.highestOneBit(m) << 1);
+    switch (turn & QwixxModel.PHASE_MASK) {
+    case QwixxModel.WHITE:
+      return whiteColumns[row < (numRows + 1) / 2 ? 0 : 1] & open;
+    case QwixxModel.COLOR:
+      return colorColumns[row] & open;
+    default:
+      return 0L;
+    }
+  }
+
+  // from ReadOnlyQwixxModel
+  public int rowScore(int row) {
+    return QwixxModel.TRIANGLE[counts[row]];
+  }
+
+  // from ReadOnlyQwixxModel
+  public int penaltyScore() {
+    return QwixxModel.PENALTY_POINTS * timesPassed();
+  }
+
+  // from ReadOnlyQwixxModel
+  public int totalScore() {
+    return boardScore - penaltyScore();
+  }
+
+  // from ReadOnlyQwixxModel
+  public String[][] numberValues() {
+    String[][] answer = new String[numRows][numCols];
+    for (int row = 0; row < numRows; ++row) {
+      for (int col = 0; col < numCols; ++col) {
+        answer[row][col] = isMarked(row, col) ? "X" : Integer.toString(numberAt(row, col));
+      }
+    }
+    return answer;
+  }
+
+  // from ReadOnlyQwixxModel
+  public String[] scoreValues() {
+    String[] answer = new String[numRows + 2];
+    for (int row = 0; row < numRows; ++row) {
+      answer[row] = Integer.toString(rowScore(row));
+    }
+    answer[numRows] = Integer.toString(penaltyScore());
+    answer[numRows + 1] = Integer.toString(totalScore());
+    return answer;
+  }
+
+  /**
+   * A snapshot never changes, so its listeners would never be notified; this
+   * does nothing. (Subscribe to the game itself instead.)
+   */
+  public void addListener(QwixxListener listener) {
+  }
+
+  /**
+   * Does nothing; see {@code addListener}.
+   */
+  public void removeListener(QwixxListener listener) {
+  }
+}
@@ -0,0 +1,288 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxStats.java
+//
+// Statistics about finished games, gathered from many threads at once.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Aggregates finished games from any number of threads with no shared lock
+ * and no contended counter. Each thread records into its own stripe of
+ * counters, which only that thread writes; {@code snapshot()} adds up the
+ * stripes, so results can be read at any time while workers keep recording.
+ * 
+ * For every game it counts the final score, the penalties taken, the number
+ * of turns, which rows were completed (their last box crossed out) and which
+ * boxes were crossed out. Scores, penalties and turns are kept as complete
+ * histograms: they are small integers, so exact counts take less space than
+ * a quantile sketch and give exact quantiles.
+ */
+public class QwixxStats {
+
+  // Game lengths from 0 to MAX_TURNS - 1 are counted exactly; longer games
+  // share the last bucket.
+  static final int MAX_TURNS = 256;
+
+  private final int numRows;
+  private final int numCols;
+  private final int minScore;
+
+  // Each stripe is one AtomicLongArray laid out as: games, the score histogram,
+  // the penalty histogram, the turn histogram, per-row completions, then
+  // per-box cross-outs (row-major).
+  private final int scores;
+  private final int penalties;
+  private final int turns;
+  private final int completed;
+  private final int crossed;
+  private final int size;
+
+  private final ConcurrentLinkedQueue<Recorder> stripes = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<Recorder> recorders = new ThreadLocal<Recorder>() {
+    @Override
+    protected Recorder initialValue() {
+      Recorder recorder = new Recorder();
+      stripes.add(recorder);
+      return recorder;
+    }
+  };
+
+  /**
+   * Constructor
+   * 
+   * @param numRows the number of rows on the board
+   * @param numCols the number of columns on the board
+   */
+  public QwixxStats(int numRows, int numCols) {
+    this.numRows = numRows;
+    this.numCols = numCols;
+    this.minScore = -QwixxModel.PENALTY_POINTS * QwixxModel.MAX_PENALTIES;
+    int maxScore = numRows * numCols * (numCols + 1) / 2;
+
+    scores = 1;
+    penalties = scores + maxScore - minScore + 1;
+    turns = penalties + QwixxModel.MAX_PENALTIES + 1;
+    completed = turns + MAX_TURNS;
+    crossed = completed + numRows;
+    size = crossed + numRows * numCols;
+  }
+
+  /**
+   * Record a finished game from the calling thread.
+   * 
+   * @param model the game
+   * @param turns the number of turns it took
+   */
+  public void record(ReadOnlyQwixxModel model, int turns) {
+    recorders.get().record(model, turns);
+  }
+
+  /**
+   * The calling thread's stripe. Workers that record many games can keep it to
+   * skip the thread-local lookup; it must only be used by this thread.
+   * 
+   * @return the recorder
+   */
+  public Recorder recorder() {
+    return recorders.get();
+  }
+
+  /**
+   * One thread's counters.
+   */
+  public class Recorder {
+    private final AtomicLongArray counts = new AtomicLongArray(size);
+
+    private Recorder() {
+    }
+
+    // Only the owning thread writes, so an ordered write of get() + 1 is an
+    // exact increment; it needs no CAS and does not wait for other cores.
+    private void increment(int i) {
+      counts.lazySet(i, counts.get(i) + 1);
+    }
+
+    /**
+     * Record a finished game.
+     * 
+     * @param model the game
+     * @param turns the number of turns it took
+     */
+    public void record(ReadOnlyQwixxModel model, int turns) {
+      increment(scores + model.totalScore() - minScore);
+      increment(penalties + model.timesPassed());
+      increment(QwixxStats.this.turns + Math.min(turns, MAX_TURNS - 1));
+      for (int row = 0; row < numRows; ++row) {
+        int last = model.lastMarked(row);
+        if (last == numCols - 1) {
+          increment(completed + row);
+        }
+        for (int col = 0; col <= last; ++col) {
+          if (model.isMarked(row, col)) {
+            increment(crossed + row * numCols + col);
+          }
+        }
+      }
+
+      // Last, so a snapshot never counts a game whose details it lacks.
+      increment(0);
+    }
+  }
+
+  /**
+   * Add up every thread's counters. Workers may keep recording meanwhile; each
+   * counter in the snapshot is exact as of some moment during the call, so
+   * games still being recorded may be missing from some of them.
+   * 
+   * @return the totals so far
+   */
+  public Snapshot snapshot() {
+    long[] totals = new long[size];
+    for (Recorder recorder : stripes) {
+      for (int i = 0; i < size; ++i) {
+        totals[i] += recorder.counts.get(i);
+      }
+    }
+    return new Snapshot(totals);
+  }
+
+  /**
+   * The statistics at one moment.
+   */
+  public class Snapshot {
+    private final long[] totals;
+
+    private Snapshot(long[] totals) {
+      this.totals = totals;
+    }
+
+    public long games() {
+      return totals[0];
+    }
+
+    /**
+     * The number of games that ended with the given score.
+     * 
+     * @param score a final score
+     * @return the number of games
+     */
+    public long scoreCount(int score) {
+      int i = score - minScore;
+      return i < 0 || scores + i >= penalties ? 0 : totals[scores + i];
+    }
+
+    public double meanScore() {
+      return mean(scores, penalties, minScore);
+    }
+
+    /**
+     * The smallest score such that at least fraction {@code q} of games scored
+     * at or below it.
+     * 
+     * @param q a fraction between 0 and 1
+     * @return the score at that quantile
+     */
+    public int scoreQuantile(double q) {
+      return quantile(scores, penalties, q) + minScore;
+    }
+
+    /**
+     * The number of games that ended with the given number of penalties.
+     * 
+     * @param count a number of penalties
+     * @return the number of games
+     */
+    public long penaltyCount(int count) {
+      return count < 0 || count > QwixxModel.MAX_PENALTIES ? 0 : totals[penalties + count];
+    }
+
+    public double meanPenalties() {
+      return mean(penalties, turns, 0);
+    }
+
+    public double meanTurns() {
+      return mean(turns, completed, 0);
+    }
+
+    /**
+     * The smallest game length such that at least fraction {@code q} of games
+     * took at most that many turns.
+     * 
+     * @param q a fraction between 0 and 1
+     * @return the number of turns at that quantile
+     */
+    public int turnQuantile(double q) {
+      return quantile(turns, completed, q);
+    }
+
+    /**
+     * The fraction of games in which the given row was completed (its last box
+     * crossed out).
+     * 
+     * @param row the row
+     * @return the completion rate
+     */
+    public double completionRate(int row) {
+      return rate(totals[completed + row]);
+    }
+
+    /**
+     * The fraction of games in which the given box was crossed out.
+     * 
+     * @param row the row of the box
+     * @param col the column of the box
+     * @return the cross-out rate
+     */
+    public double crossRate(int row, int col) {
+      return rate(totals[crossed + row * numCols + col]);
+    }
+
+    private double rate(long count) {
+      return games() == 0 ? 0 : (double) count / games();
+    }
+
+    private double mean(int from, int to, int offset) {
+      double sum = 0;
+      long count = 0;
+      for (int i = from; i < to; ++i) {
+        sum += (double) totals[i] * (i - from + offset);
+        count += totals[i];
+      }
+      return count == 0 ? 0 : sum / count;
+    }
+
+    private int quantile(int from, int to, double q) {
+      long count = 0;
+      for (int i = from; i < to; ++i) {
+        count += totals[i];
+      }
+      long target = (long) Math.ceil(q * count);
+      long seen = 0;
+      for (int i = from; i < to; ++i) {
+        seen += totals[i];
+        if (seen >= target && seen > 0) {
+          return i - from;
+        }
+      }
+      return to - 1 - from;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder();
+      text.append(String.format("%d games; score mean %.2f, median %d, p90 %d; penalties mean %.2f; "
+          + "turns mean %.1f, p90 %d%ncompleted rows:", games(), meanScore(), scoreQuantile(0.5), scoreQuantile(0.9),
+          meanPenalties(), meanTurns(), turnQuantile(0.9)));
+      for (int row = 0; row < numRows; ++row) {
+        text.append(String.format(" %.3f", completionRate(row)));
+      }
+      return text.toString();
+    }
+  }
+}
@@ -0,0 +1,638 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxStore.java
+//
+// Millions of games packed off the heap, 16 bytes each.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps many games in fixed 16-byte slots of one direct (or memory-mapped)
+ * buffer instead of one {@code QwixxModel} object graph each, so ten million
+ * games take 160 MB outside the heap and add nothing for the garbage collector
+ * to trace. The store plays the same rules as {@code QwixxModel}; each game is
+ * addressed by its slot number.
+ * 
+ * A slot is two longs. The first holds the board, one bit per box, row by row,
+ * with the turn packed as in {@code QwixxModel} (phase, "marked" flag and
+ * penalties) in its top 6 bits; the second holds the dice, 3 bits each. Counts
+ * and scores are recomputed from the board with a few bit counts, so the
+ * board must fit in 58 bits (a standard board uses 44) and the dice in 21.
+ * 
+ * {@code View} is a flyweight {@code ReadOnlyQwixxModel} over one slot at a
+ * time: point it at a slot with {@code at} and read, or hand it to a
+ * {@code QwixxPolicy}. Views hold no state but the slot number, so one per
+ * thread is enough.
+ * 
+ * Different games may be played from different threads at once; any one game
+ * must be played by one thread at a time. Allocating and releasing slots is
+ * synchronized.
+ */
+public class QwixxStore {
+
+  /**
+   * The size of a slot, in bytes.
+   */
+  public static final int SLOT_BYTES = 16;
+
+  private static final int TURN_SHIFT = 58;
+  private static final long BOARD_MASK = (1L << TURN_SHIFT) - 1;
+  private static final int DIE_BITS = 3;
+  private static final long DIE_MASK = (1 << DIE_BITS) - 1;
+  private static final int MAX_SUM = 12;
+
+  // A released slot has this turn, and the next free slot in its dice word.
+  private static final long FREE = 0x3fL;
+
+  private final int numRows;
+  private final int numCols;
+  private final int numWhiteDice;
+  private final int numDice;
+  private final int capacity;
+  private final ByteBuffer buffer;
+
+  // The board bits of each row, in place, and the bit of its first column.
+  private final long[] rowMasks;
+  private final int[] rowShifts;
+
+  // columnOfSum[direction][n] is the column printed with n in rows running in
+  // that direction, or -1.
+  private final int[][] columnOfSum;
+
+  // Slots [0, top) have been handed out at least once; released ones are
+  // chained through freeList.
+  private int allocated;
+  private int top;
+  private int freeList = -1;
+
+  private QwixxStore(int capacity, int numRows, int numCols, int numWhiteDice, ByteBuffer buffer) {
+    if (numRows * numCols > TURN_SHIFT) {
+      throw new IllegalArgumentException("At most " + TURN_SHIFT + " boxes fit in a slot.");
+    }
+    if ((numWhiteDice + numRows) * DIE_BITS > Long.SIZE) {
+      throw new IllegalArgumentException("At most " + Long.SIZE / DIE_BITS + " dice fit in a slot.");
+    }
+    if (buffer.capacity() / SLOT_BYTES < capacity) {
+      throw new IllegalArgumentException("The buffer holds fewer than " + capacity + " slots.");
+    }
+    this.numRows = numRows;
+    this.numCols = numCols;
+    this.numWhiteDice = numWhiteDice;
+    this.numDice = numWhiteDice + numRows;
+    this.capacity = capacity;
+    this.buffer = buffer.order(ByteOrder.nativeOrder());
+
+    rowMasks = new long[numRows];
+    rowShifts = new int[numRows];
+    for (int row = 0; row < numRows; ++row) {
+      rowShifts[row] = row * numCols;
+      rowMasks[row] = ((1L << numCols) - 1) << rowShifts[row];
+    }
+    columnOfSum = new int[2][MAX_SUM + 1];
+    for (int n = 0; n < columnOfSum[0].length; ++n) {
+      int offset = n - QwixxModel.MIN_COLUMN;
+      boolean onBoard = offset >= 0 && offset < numCols;
+      columnOfSum[0][n] = onBoard ? offset : -1;
+      columnOfSum[1][n] = onBoard ? numCols - 1 - offset : -1;
+    }
+  }
+
+  /**
+   * A store in a new direct buffer.
+   * 
+   * @param capacity     the number of games it can hold (less than 2^27)
+   * @param numRows      the number of rows
+   * @param numCols      the number of columns
+   * @param numWhiteDice the number of white dice
+   * @return the store
+   */
+  public static QwixxStore allocate(int capacity, int numRows, int numCols, int numWhiteDice) {
+    return new QwixxStore(capacity, numRows, numCols, numWhiteDice,
+        ByteBuffer.allocateDirect(Math.multiplyExact(capacity, SLOT_BYTES)));
+  }
+
+  /**
+   * A store of standard games in a new direct buffer.
+   * 
+   * @param capacity the number of games it can hold (less than 2^27)
+   * @return the store
+   */
+  public static QwixxStore allocate(int capacity) {
+    return allocate(capacity, 4, 11, 2);
+  }
+
+  /**
+   * A store of standard games in a memory-mapped file, so the operating system
+   * pages idle games out to disk and the games outlive the process. The file is
+   * created if need be. (Slots allocated by an earlier process are not
+   * remembered as allocated; reopen with {@code allocateAll}.)
+   * 
+   * @param file     the file
+   * @param capacity the number of games it can hold (less than 2^27)
+   * @return the store
+   * @throws IOException if the file cannot be mapped
+   */
+  public static QwixxStore map(Path file, int capacity) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.multiplyExact(capacity, SLOT_BYTES));
+      return new QwixxStore(capacity, 4, 11, 2, buffer);
+    }
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * The number of slots in use.
+   * 
+   * @return the number of games
+   */
+  public synchronized int size() {
+    return allocated;
+  }
+
+  /**
+   * Take a slot for a new game.
+   * 
+   * @return the slot
+   * @throws IllegalStateException if every slot is in use
+   */
+  public synchronized int allocate() {
+    int slot;
+    if (freeList >= 0) {
+      slot = freeList;
+      freeList = (int) dice(slot);
+    } else if (top < capacity) {
+      slot = top++;
+    } else {
+      throw new IllegalStateException("All " + capacity + " slots are in use.");
+    }
+    ++allocated;
+    reset(slot);
+    return slot;
+  }
+
+  /**
+   * Treat every slot as in use (for a mapped file whose games were created by
+   * an earlier process).
+   */
+  public synchronized void allocateAll() {
+    allocated = top = capacity;
+    freeList = -1;
+  }
+
+  /**
+   * Give a slot back.
+   * 
+   * @param slot the slot
+   * @throws IllegalArgumentException if the slot is not in use (releasing it
+   *                                  again would chain it into the free list
+   *                                  twice, and hand it to two games)
+   */
+  public synchronized void release(int slot) {
+    if (slot < 0 || slot >= top || turn(board(slot)) == FREE) {
+      throw new IllegalArgumentException("Slot " + slot + " is not in use.");
+    }
+    buffer.putLong(slot * SLOT_BYTES, FREE << TURN_SHIFT);
+    buffer.putLong(slot * SLOT_BYTES + 8, freeList);
+    freeList = slot;
+    --allocated;
+  }
+
+  //
+  // The packed state
+  //
+
+  private long board(int slot) {
+    return buffer.getLong(slot * SLOT_BYTES);
+  }
+
+  private long dice(int slot) {
+    return buffer.getLong(slot * SLOT_BYTES + 8);
+  }
+
+  private void setBoard(int slot, long board) {
+    buffer.putLong(slot * SLOT_BYTES, board);
+  }
+
+  private static int turn(long board) {
+    return (int) (board >>> TURN_SHIFT);
+  }
+
+  private static long withTurn(long board, int turn) {
+    return (board & BOARD_MASK) | (long) turn << TURN_SHIFT;
+  }
+
+  private static int die(long dice, int i) {
+    return (int) (dice >>> (DIE_BITS * i) & DIE_MASK);
+  }
+
+  private int direction(int row) {
+    return row < (numRows + 1) / 2 ? 0 : 1;
+  }
+
+  // The columns of the row (as bits from 0) that the dice allow in the phase.
+  private long allowed(long dice, int phase, int row) {
+    int[] columns = columnOfSum[direction(row)];
+    long allowed = 0;
+    if (phase == QwixxModel.WHITE) {
+      for (int i = 0; i < numWhiteDice; ++i) {
+        for (int j = i + 1; j < numWhiteDice; ++j) {
+          int col = columns[die(dice, i) + die(dice, j)];
+          allowed |= col < 0 ? 0 : 1L << col;
+        }
+      }
+    } else if (phase == QwixxModel.COLOR) {
+      int color = die(dice, numWhiteDice + row);
+      for (int i = 0; i < numWhiteDice; ++i) {
+        int col = columns[die(dice, i) + color];
+        allowed |= col < 0 ? 0 : 1L << col;
+      }
+    }
+    return allowed;
+  }
+
+  // Bits are addressed as rowShifts[row] + col, so a column off the end of a
+  // row would silently address the next row.
+  private void checkBox(int row, int col) {
+    if (row < 0 || row >= numRows || col < 0 || col >= numCols) {
+      throw new IndexOutOfBoundsException("No box at (" + row + ", " + col + ") on a " + numRows + "x" + numCols
+          + " board.");
+    }
+  }
+
+  private long rowBits(long board, int row) {
+    return (board & rowMasks[row]) >>> rowShifts[row];
+  }
+
+  private int lastMarked(long board, int row) {
+    return (Long.SIZE - 1) - Long.numberOfLeadingZeros(rowBits(board, row));
+  }
+
+  //
+  // Moves (the same rules as QwixxModel)
+  //
+
+  /**
+   * Start a new game in a slot.
+   * 
+   * @param slot the slot
+   */
+  public void reset(int slot) {
+    setBoard(slot, 0L);
+    buffer.putLong(slot * SLOT_BYTES + 8, 0L);
+  }
+
+  /**
+   * Roll the dice of a game.
+   * 
+   * @param slot   the game
+   * @param source where the rolls come from
+   */
+  public void rollDice(int slot, DiceSource source) {
+    long dice = 0;
+    for (int i = 0; i < numDice; ++i) {
+      dice |= (long) source.nextDie() << (DIE_BITS * i);
+    }
+    roll(slot, dice);
+  }
+
+  /**
+   * "Roll" the dice of a game by assigning them the given values.
+   * 
+   * @param slot   the game
+   * @param values the value of each die, in {@code QwixxModel}'s order
+   */
+  public void rollDice(int slot, int[] values) {
+    long dice = 0;
+    for (int i = 0; i < numDice; ++i) {
+      dice |= (long) values[i] << (DIE_BITS * i);
+    }
+    roll(slot, dice);
+  }
+
+  private void roll(int slot, long dice) {
+    long board = board(slot);
+    buffer.putLong(slot * SLOT_BYTES + 8, dice);
+    setBoard(slot, withTurn(board, (turn(board) & ~(QwixxModel.PHASE_MASK | QwixxModel.MARKED)) | QwixxModel.WHITE));
+  }
+
+  /**
+   * Cross out a box in a game, as {@code QwixxModel.numberSelected}.
+   * 
+   * @param slot the game
+   * @param row  the row of the box
+   * @param col  the column of the box
+   * @return a {@code StatusCode} indicating the result of the attempt
+   * @throws IndexOutOfBoundsException if there is no such box
+   */
+  public QwixxModel.StatusCode numberSelected(int slot, int row, int col) {
+    checkBox(row, col);
+    long board = board(slot);
+    int turn = turn(board);
+    int phase = turn & QwixxModel.PHASE_MASK;
+    if (phase == QwixxModel.ROLL) {
+      return QwixxModel.StatusCode.MUST_ROLL;
+    }
+    if ((allowed(dice(slot), phase, row) & (1L << col)) == 0) {
+      return QwixxModel.StatusCode.DICE_DONT_MATCH;
+    }
+    if (col <= lastMarked(board, row)) {
+      return QwixxModel.StatusCode.EXCLUDED;
+    }
+    turn = (turn & ~QwixxModel.PHASE_MASK) | QwixxModel.MARKED
+        | (phase == QwixxModel.WHITE ? QwixxModel.COLOR : QwixxModel.ROLL);
+    setBoard(slot, withTurn(board | 1L << (rowShifts[row] + col), turn));
+    return QwixxModel.StatusCode.VALID;
+  }
+
+  /**
+   * Pass on the white dice of a game.
+   * 
+   * @param slot the game
+   */
+  public void passWhite(int slot) {
+    long board = board(slot);
+    setBoard(slot, withTurn(board, (turn(board) & ~QwixxModel.PHASE_MASK) | QwixxModel.COLOR));
+  }
+
+  /**
+   * Pass on the colored dice of a game, taking a penalty unless a box was
+   * crossed out with the white dice.
+   * 
+   * @param slot the game
+   */
+  public void passColor(int slot) {
+    long board = board(slot);
+    int turn = turn(board);
+    int penalty = (turn & QwixxModel.MARKED) == 0 ? 1 << QwixxModel.PENALTY_SHIFT : 0;
+    turn = ((turn & ~(QwixxModel.PHASE_MASK | QwixxModel.MARKED)) + penalty) | QwixxModel.ROLL;
+    setBoard(slot, withTurn(board, turn));
+  }
+
+  /**
+   * Play the current turn of a game with the given policy, as
+   * {@code QwixxSimulator.playTurn}.
+   * 
+   * @param view   a view of this store, pointed at the game
+   * @param policy the policy that makes the decisions
+   */
+  public void playTurn(View view, QwixxPolicy policy) {
+    int slot = view.slot;
+    while (view.canSelect()) {
+      int choice = policy.choose(view);
+      if (choice == QwixxPolicy.PASS) {
+        if (view.canPassWhite()) {
+          passWhite(slot);
+        } else {
+          passColor(slot);
+        }
+      } else {
+        QwixxModel.StatusCode status = numberSelected(slot, choice / numCols, choice % numCols);
+        if (status != QwixxModel.StatusCode.VALID) {
+          throw new IllegalStateException("Policy chose " + choice + ", which returned " + status);
+        }
+      }
+    }
+  }
+
+  /**
+   * A new view, pointing at slot 0.
+   * 
+   * @return the view
+   */
+  public View view() {
+    return new View();
+  }
+
+  /**
+   * A flyweight view of one game in the store. Every call reads the slot
+   * directly, so the view always shows the game's current state.
+   */
+  public class View implements ReadOnlyQwixxModel {
+    private int slot;
+
+    private View() {
+    }
+
+    /**
+     * Point this view at another game.
+     * 
+     * @param slot the game's slot
+     * @return this view
+     */
+    public View at(int slot) {
+      this.slot = slot;
+      return this;
+    }
+
+    public int slot() {
+      return slot;
+    }
+
+    private int turn() {
+      return QwixxStore.turn(board(slot));
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numRows() {
+      return numRows;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numColumns() {
+      return numCols;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int minColumn() {
+      return QwixxModel.MIN_COLUMN;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numWhiteDice() {
+      return numWhiteDice;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int maxPenalties() {
+      return QwixxModel.MAX_PENALTIES;
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean canRoll() {
+      return (turn() & QwixxModel.PHASE_MASK) == QwixxModel.ROLL && !gameOver();
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean canSelect() {
+      return (turn() & QwixxModel.PHASE_MASK) != QwixxModel.ROLL;
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean canPassWhite() {
+      return (turn() & QwixxModel.PHASE_MASK) == QwixxModel.WHITE;
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean canPassColor() {
+      return (turn() & QwixxModel.PHASE_MASK) == QwixxModel.COLOR;
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean markedThisTurn() {
+      return (turn() & QwixxModel.MARKED) != 0;
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean gameOver() {
+      return timesPassed() >= QwixxModel.MAX_PENALTIES;
+    }
+
+    // from ReadOnlyQwixxModel
+    public String statusMessage() {
+      return QwixxModel.statusMessage(turn());
+    }
+
+    // from ReadOnlyQwixxModel
+    public String[] diceValues() {
+      String[] answer = new String[numDice];
+      for (int i = 0; i < numDice; ++i) {
+        answer[i] = Integer.toString(die(i));
+      }
+      return answer;
+    }
+
+    // from ReadOnlyQwixxModel
+    public String[][] numberValues() {
+      return numberValues(0, numRows);
+    }
+
+    // from ReadOnlyQwixxModel
+    public String[] scoreValues() {
+      String[] answer = new String[numRows + 2];
+      for (int row = 0; row < numRows; ++row) {
+        answer[row] = Integer.toString(rowScore(row));
+      }
+      answer[numRows] = Integer.toString(penaltyScore());
+      answer[numRows + 1] = Integer.toString(totalScore());
+      return answer;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numDice() {
+      return numDice;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int die(int i) {
+      return QwixxStore.die(dice(slot), i);
+    }
+
+    // from ReadOnlyQwixxModel
+    public void copyDiceInto(int[] dst) {
+      long dice = dice(slot);
+      for (int i = 0; i < numDice; ++i) {
+        dst[i] = QwixxStore.die(dice, i);
+      }
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numberAt(int row, int col) {
+      return direction(row) == 0 ? QwixxModel.MIN_COLUMN + col : QwixxModel.MIN_COLUMN + numCols - 1 - col;
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean isMarked(int row, int col) {
+      checkBox(row, col);
+      return (board(slot) & (1L << (rowShifts[row] + col))) != 0;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int lastMarked(int row) {
+      return QwixxStore.this.lastMarked(board(slot), row);
+    }
+
+    // from ReadOnlyQwixxModel
+    public long legalMoves(int row) {
+      long board = board(slot);
+      long allowed = allowed(dice(slot), QwixxStore.turn(board) & QwixxModel.PHASE_MASK, row);
+      return allowed & (-1L << (QwixxStore.this.lastMarked(board, row) + 1));
+    }
+
+    // from ReadOnlyQwixxModel
+    public int rowScore(int row) {
+      return QwixxModel.TRIANGLE[Long.bitCount(board(slot) & rowMasks[row])];
+    }
+
+    // from ReadOnlyQwixxModel
+    public int penaltyScore() {
+      return QwixxModel.PENALTY_POINTS * timesPassed();
+    }
+
+    // from ReadOnlyQwixxModel
+    public int totalScore() {
+      long board = board(slot);
+      int score = 0;
+      for (int row = 0; row < numRows; ++row) {
+        score += QwixxModel.TRIANGLE[Long.bitCount(board & rowMasks[row])];
+      }
+      return score - QwixxModel.PENALTY_POINTS * (QwixxStore.turn(board) >>> QwixxModel.PENALTY_SHIFT);
+    }
+
+    // from ReadOnlyQwixxModel
+    public int timesPassed() {
+      return turn() >>> QwixxModel.PENALTY_SHIFT;
+    }
+
+    /**
+     * A view has no listeners; this does nothing.
+     */
+    public void addListener(QwixxListener listener) {
+    }
+
+    /**
+     * Does nothing; see {@code addListener}.
+     */
+    public void removeListener(QwixxListener listener) {
+    }
+  }
+
+  /**
+   * Fill a store with games, play a turn of each, and report the memory used.
+   * 
+   * @param args [games]
+   */
+  public static void main(String[] args) {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+    Runtime runtime = Runtime.getRuntime();
+    long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+    long start = System.nanoTime();
+
+    QwixxStore store = allocate(games);
+    View view = store.view();
+    QwixxPolicy policy = QwixxPolicy.greedy(1);
+    SplitMixDiceSource dice = new SplitMixDiceSource(start);
+    for (int g = 0; g < games; ++g) {
+      int slot = store.allocate();
+      store.rollDice(slot, dice);
+      store.playTurn(view.at(slot), policy);
+    }
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+    System.out.printf("%d games in %.2fs: %d MB off the heap, heap grew by %d MB%n", store.size(), seconds,
+        (long) games * SLOT_BYTES >> 20, Math.max(0, heapAfter - heapBefore) >> 20);
+  }
+}
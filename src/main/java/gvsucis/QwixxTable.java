@@ -0,0 +1,641 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxTable.java
+//
+// A game of Qwixx for several players, who may act from different threads.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * The multiplayer game. Players take turns as the active player, who rolls the
+ * dice. Then, as in the real game, every player at once may cross out the box
+ * for the sum of the white dice; when all have chosen, the active player may
+ * also cross out a box for a white die plus a colored die. The active player
+ * alone takes a penalty for crossing out nothing on their roll.
+ * 
+ * The last box of a row can only be crossed out once the player has crossed
+ * out at least {@code NEED_TO_LOCK} boxes in that row ({@code NEED5}
+ * otherwise). Crossing it out locks the row for everyone, and the lock counts
+ * as one more box for that player. Players who cross out the same last box on
+ * the same white roll all get it. The game ends when half the rows (two of
+ * four) are locked, or when a player takes their last penalty.
+ * 
+ * Each {@code Player} may be driven by its own thread; players' moves need no
+ * lock. A player's board is written only by that player, so selecting a box is
+ * as cheap as in {@code QwixxModel}. The table coordinates through two atomic
+ * words: a countdown of players yet to act on the white dice, and the rows
+ * locked during the current roll. Locks take effect once everyone has acted on
+ * the white dice, so the order in which players act never changes the outcome.
+ * (Calls for any one player must not overlap, however.)
+ */
+public class QwixxTable {
+
+  /**
+   * The number of boxes a player must have crossed out in a row before they
+   * may cross out its last box.
+   */
+  public static final int NEED_TO_LOCK = 5;
+
+  // The table's turn packs the number of rolls so far with the phase:
+  // generation << PHASE_BITS | phase. A roll goes ROLL, ROLLING (while one
+  // thread sets the dice), WHITE, COLOR, then ROLL again, or OVER.
+  private static final int ROLL = 0;
+  private static final int ROLLING = 1;
+  private static final int WHITE = 2;
+  private static final int COLOR = 3;
+  private static final int OVER = 4;
+  private static final int PHASE_BITS = 3;
+  private static final long PHASE_MASK = (1 << PHASE_BITS) - 1;
+
+  private final int numRows;
+  private final int numCols;
+  private final int locksToEnd;
+
+  // Holds the dice and the columns they allow. Its own board stays empty, so
+  // its whiteMoves and colorMoves are exactly the columns the dice allow.
+  private final QwixxModel dice;
+
+  private final Player[] players;
+
+  private final AtomicLong turn = new AtomicLong(ROLL);
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicLong locking = new AtomicLong();
+
+  // Written only while no player can select: between rolls, and by the last
+  // player to act on the white dice.
+  private volatile long locked;
+  private volatile int active;
+
+  /**
+   * Constructor
+   * 
+   * @param numPlayers   the number of players
+   * @param numRows      the number of rows (a standard game uses 4)
+   * @param numCols      the number of numbered columns (11 for a standard game)
+   * @param numWhiteDice the number of white dice used (2 for a standard game)
+   * @param diceSource   where {@code rollDice()} gets its rolls
+   */
+  public QwixxTable(int numPlayers, int numRows, int numCols, int numWhiteDice, DiceSource diceSource) {
+    if (numPlayers < 1) {
+      throw new IllegalArgumentException("A table needs at least one player.");
+    }
+    // (The lock counts as one more box, and TRIANGLE stops at 64.)
+    if (numCols >= Long.SIZE) {
+      throw new IllegalArgumentException("At most " + (Long.SIZE - 1) + " columns are supported.");
+    }
+    if (numRows >= Long.SIZE) {
+      throw new IllegalArgumentException("At most " + (Long.SIZE - 1) + " rows are supported.");
+    }
+    this.numRows = numRows;
+    this.numCols = numCols;
+    this.locksToEnd = Math.max(1, numRows / 2);
+    this.dice = new QwixxModel(numRows, numCols, numWhiteDice, diceSource);
+    this.players = new Player[numPlayers];
+    for (int i = 0; i < numPlayers; ++i) {
+      players[i] = new Player(i);
+    }
+  }
+
+  /**
+   * Constructor for a standard board.
+   * 
+   * @param numPlayers the number of players
+   */
+  public QwixxTable(int numPlayers) {
+    this(numPlayers, 4, 11, 2, DiceSource.threadLocal());
+  }
+
+  /**
+   * Start a new game at the same table; the first player rolls first. (Not to
+   * be called while players are acting.)
+   */
+  public void reset() {
+    for (Player player : players) {
+      player.clear();
+    }
+    dice.reset();
+    locking.set(0);
+    pending.set(0);
+    locked = 0;
+    active = 0;
+    turn.set(ROLL);
+  }
+
+  public int numPlayers() {
+    return players.length;
+  }
+
+  public Player player(int i) {
+    return players[i];
+  }
+
+  /**
+   * The player who rolls the dice this turn (and may use the colored dice).
+   * 
+   * @return the active player's index
+   */
+  public int activePlayer() {
+    return active;
+  }
+
+  /**
+   * Whether the given row has been locked. (Rows locked by the current white
+   * dice count only once every player has acted on them.)
+   * 
+   * @param row the row
+   * @return {@code true} if no one may cross out boxes in the row
+   */
+  public boolean isLocked(int row) {
+    return (locked & (1L << row)) != 0;
+  }
+
+  public int lockedRows() {
+    return Long.bitCount(locked);
+  }
+
+  public boolean gameOver() {
+    return phase(turn.get()) == OVER;
+  }
+
+  /**
+   * The number of rolls so far this game.
+   * 
+   * @return the number of rolls
+   */
+  public long rolls() {
+    return generation(turn.get());
+  }
+
+  private static int phase(long turn) {
+    return (int) (turn & PHASE_MASK);
+  }
+
+  private static long generation(long turn) {
+    return turn >>> PHASE_BITS;
+  }
+
+  /**
+   * Roll the dice randomly for the active player. If several threads try to
+   * roll at once, exactly one succeeds.
+   * 
+   * @return {@code false} (and nothing happens) if it is not time to roll
+   */
+  public boolean rollDice() {
+    return roll(null);
+  }
+
+  /**
+   * "Roll" the dice by assigning them the given values. This method is used by
+   * unit tests (so they know what to expect).
+   * 
+   * @param values the value for each die: the white dice, then one per row
+   * @return {@code false} (and nothing happens) if it is not time to roll
+   */
+  public boolean rollDice(int[] values) {
+    return roll(values);
+  }
+
+  private boolean roll(int[] values) {
+    long t = turn.get();
+    if (phase(t) != ROLL || !turn.compareAndSet(t, t | ROLLING)) {
+      return false;
+    }
+    if (values == null) {
+      dice.rollDice();
+    } else {
+      dice.rollDice(values);
+    }
+    locking.set(0);
+    pending.set(players.length);
+    // Publishes the dice to every player.
+    turn.set((generation(t) + 1) << PHASE_BITS | WHITE);
+    return true;
+  }
+
+  /**
+   * Called by each player when they are done with the white dice. The last one
+   * applies this roll's locks and hands the colored dice to the active player.
+   */
+  private void whiteDone(long generation) {
+    if (pending.decrementAndGet() == 0) {
+      locked |= locking.get();
+      boolean over = Long.bitCount(locked) >= locksToEnd;
+      turn.set(generation << PHASE_BITS | (over ? OVER : COLOR));
+    }
+  }
+
+  /**
+   * Called by the active player when they are done with the colored dice.
+   */
+  private void colorDone(long generation, Player player) {
+    locked |= locking.get();
+    boolean over = Long.bitCount(locked) >= locksToEnd || player.penalties >= QwixxModel.MAX_PENALTIES;
+    active = (active + 1) % players.length;
+    turn.set(generation << PHASE_BITS | (over ? OVER : ROLL));
+  }
+
+  private void lock(int row) {
+    long bit = 1L << row;
+    long rows;
+    do {
+      rows = locking.get();
+    } while ((rows & bit) == 0 && !locking.compareAndSet(rows, rows | bit));
+  }
+
+  /**
+   * Play a whole game on the calling thread, each player following the given
+   * policy.
+   * 
+   * @param policies one policy per player
+   * @return the number of rolls in the game
+   */
+  public long play(QwixxPolicy[] policies) {
+    while (!gameOver()) {
+      rollDice();
+      for (int i = 0; i < players.length; ++i) {
+        players[i].act(policies[i]);
+      }
+      players[active].act(policies[active]);
+    }
+    return rolls();
+  }
+
+  /**
+   * One player's seat at the table: their board, and the moves they may make.
+   * 
+   * As a {@code ReadOnlyQwixxModel}, a player sees the game from their seat
+   * ({@code legalMoves} leaves out locked rows, and the last box of a row until
+   * {@code NEED_TO_LOCK} boxes are crossed out), so any {@code QwixxPolicy} can
+   * play.
+   */
+  public class Player implements ReadOnlyQwixxModel {
+    private final int index;
+    private final long[] marks = new long[numRows];
+    private final int[] counts = new int[numRows];
+    private int boardScore;
+    private int penalties;
+
+    // The roll on which this player last acted on the white dice, and the last
+    // roll on which they crossed out a box.
+    private long acted;
+    private long marked;
+
+    private Player(int index) {
+      this.index = index;
+    }
+
+    private void clear() {
+      for (int row = 0; row < numRows; ++row) {
+        marks[row] = 0;
+        counts[row] = 0;
+      }
+      boardScore = 0;
+      penalties = 0;
+      acted = 0;
+      marked = 0;
+    }
+
+    /**
+     * This player's seat number.
+     * 
+     * @return the index of the player at the table
+     */
+    public int index() {
+      return index;
+    }
+
+    /**
+     * Called when this player selects one of the numbers in the grid, on the
+     * white dice or, if they are the active player, the colored dice. Any
+     * number of players may call this at once.
+     * 
+     * @param row the number of the row selected
+     * @param col the index of the column selected
+     * @return a {@code StatusCode} indicating the result of the attempt
+     */
+    public QwixxModel.StatusCode numberSelected(int row, int col) {
+      long t = turn.get();
+      long allowed;
+      if (phase(t) == WHITE && acted != generation(t)) {
+        allowed = dice.whiteMoves(row);
+      } else if (phase(t) == COLOR && active == index) {
+        allowed = dice.colorMoves(row);
+      } else {
+        return QwixxModel.StatusCode.MUST_ROLL;
+      }
+
+      if (isLocked(row)) {
+        return QwixxModel.StatusCode.EXCLUDED;
+      }
+      if ((allowed & (1L << col)) == 0) {
+        return QwixxModel.StatusCode.DICE_DONT_MATCH;
+      }
+      if (col <= lastMarked(row)) {
+        return QwixxModel.StatusCode.EXCLUDED;
+      }
+      boolean last = col == numCols - 1;
+      if (last && counts[row] < NEED_TO_LOCK) {
+        return QwixxModel.StatusCode.NEED5;
+      }
+
+      marks[row] |= 1L << col;
+      counts[row] += last ? 2 : 1;
+      boardScore += last ? 2 * counts[row] - 1 : counts[row];
+      marked = generation(t);
+      if (last) {
+        lock(row);
+      }
+      done(t);
+      return QwixxModel.StatusCode.VALID;
+    }
+
+    /**
+     * Called when this player elects not to use the white dice.
+     * 
+     * @return {@code false} (and nothing happens) if the player cannot pass now
+     */
+    public boolean passWhite() {
+      long t = turn.get();
+      if (phase(t) != WHITE || acted == generation(t)) {
+        return false;
+      }
+      done(t);
+      return true;
+    }
+
+    /**
+     * Called when the active player elects not to use the colored dice. They
+     * take a penalty unless they crossed out a box on the white dice.
+     * 
+     * @return {@code false} (and nothing happens) if the player cannot pass now
+     */
+    public boolean passColor() {
+      long t = turn.get();
+      if (phase(t) != COLOR || active != index) {
+        return false;
+      }
+      if (marked != generation(t)) {
+        ++penalties;
+      }
+      done(t);
+      return true;
+    }
+
+    private void done(long t) {
+      if (phase(t) == WHITE) {
+        acted = generation(t);
+        whiteDone(generation(t));
+      } else {
+        colorDone(generation(t), this);
+      }
+    }
+
+    /**
+     * Make this player's decisions for the current phase, if they have any to
+     * make, using the given policy.
+     * 
+     * @param policy the policy that makes the decisions
+     */
+    public void act(QwixxPolicy policy) {
+      while (canSelect()) {
+        int choice = policy.choose(this);
+        if (choice == QwixxPolicy.PASS) {
+          if (!passWhite()) {
+            passColor();
+          }
+        } else {
+          int row = choice / numCols;
+          int col = choice % numCols;
+          QwixxModel.StatusCode status = numberSelected(row, col);
+          if (status != QwixxModel.StatusCode.VALID) {
+            throw new IllegalStateException(
+                String.format("Policy chose (%d, %d), which returned %s", row, col, status));
+          }
+        }
+      }
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numRows() {
+      return numRows;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numColumns() {
+      return numCols;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int minColumn() {
+      return QwixxModel.MIN_COLUMN;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numWhiteDice() {
+      return dice.numWhiteDice();
+    }
+
+    // from ReadOnlyQwixxModel
+    public int maxPenalties() {
+      return QwixxModel.MAX_PENALTIES;
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean canRoll() {
+      return phase(turn.get()) == ROLL && active == index;
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean canSelect() {
+      return canPassWhite() || canPassColor();
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean canPassWhite() {
+      long t = turn.get();
+      return phase(t) == WHITE && acted != generation(t);
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean canPassColor() {
+      return phase(turn.get()) == COLOR && active == index;
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean markedThisTurn() {
+      return marked != 0 && marked == generation(turn.get());
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean gameOver() {
+      return QwixxTable.this.gameOver();
+    }
+
+    // from ReadOnlyQwixxModel
+    public String statusMessage() {
+      if (gameOver()) {
+        return "Game over!";
+      } else if (canPassWhite()) {
+        return "Select a number using the white dice, or pass.";
+      } else if (canPassColor()) {
+        return "Select a number using a white die and a colored die, or take a penalty.";
+      } else if (canRoll()) {
+        return "Roll the dice.";
+      } else {
+        return "Waiting for player " + (active + 1) + ".";
+      }
+    }
+
+    // from ReadOnlyQwixxModel
+    public String[] diceValues() {
+      return dice.diceValues();
+    }
+
+    // from ReadOnlyQwixxModel
+    public String[][] numberValues() {
+      String[][] answer = new String[numRows][numCols];
+      for (int row = 0; row < numRows; ++row) {
+        for (int col = 0; col < numCols; ++col) {
+          answer[row][col] = isMarked(row, col) ? "X" : Integer.toString(numberAt(row, col));
+        }
+      }
+      return answer;
+    }
+
+    // from ReadOnlyQwixxModel
+    public String[] scoreValues() {
+      String[] answer = new String[numRows + 2];
+      for (int row = 0; row < numRows; ++row) {
+        answer[row] = Integer.toString(rowScore(row));
+      }
+      answer[numRows] = Integer.toString(penaltyScore());
+      answer[numRows + 1] = Integer.toString(totalScore());
+      return answer;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numDice() {
+      return dice.numDice();
+    }
+
+    // from ReadOnlyQwixxModel
+    public int die(int i) {
+      return dice.die(i);
+    }
+
+    // from ReadOnlyQwixxModel
+    public void copyDiceInto(int[] dst) {
+      dice.copyDiceInto(dst);
+    }
+
+    // from ReadOnlyQwixxModel
+    public int numberAt(int row, int col) {
+      return dice.numberAt(row, col);
+    }
+
+    // from ReadOnlyQwixxModel
+    public boolean isMarked(int row, int col) {
+      return (marks[row] & (1L << col)) != 0;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int lastMarked(int row) {
+      return (Long.SIZE - 1) - Long.numberOfLeadingZeros(marks[row]);
+    }
+
+    // from ReadOnlyQwixxModel
+    public long legalMoves(int row) {
+      long allowed;
+      if (canPassWhite()) {
+        allowed = dice.whiteMoves(row);
+      } else if (canPassColor()) {
+        allowed = dice.colorMoves(row);
+      } else {
+        return 0L;
+      }
+      if (isLocked(row)) {
+        return 0L;
+      }
+      long m = marks[row];
+      allowed &= m == 0 ? -1L : -(Long.highestOneBit(m) << 1);
+      if (counts[row] < NEED_TO_LOCK) {
+        allowed &= ~(1L << (numCols - 1));
+      }
+      return allowed;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int rowScore(int row) {
+      return QwixxModel.TRIANGLE[counts[row]];
+    }
+
+    // from ReadOnlyQwixxModel
+    public int penaltyScore() {
+      return QwixxModel.PENALTY_POINTS * penalties;
+    }
+
+    // from ReadOnlyQwixxModel
+    public int totalScore() {
+      return boardScore - penaltyScore();
+    }
+
+    // from ReadOnlyQwixxModel
+    public int timesPassed() {
+      return penalties;
+    }
+
+    /**
+     * A seat has no listeners; this does nothing.
+     */
+    public void addListener(QwixxListener listener) {
+    }
+
+    /**
+     * Does nothing; see {@code addListener}.
+     */
+    public void removeListener(QwixxListener listener) {
+    }
+  }
+
+  /**
+   * Play many tables of greedy players across all cores.
+   * 
+   * @param args [tables [players [maxSkip]]]
+   */
+  public static void main(String[] args) {
+    long tables = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+    int numPlayers = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+    int maxSkip = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+    long seed = System.nanoTime();
+
+    long start = System.nanoTime();
+    long batches = (tables + 1023) / 1024;
+    long points = LongStream.range(0, batches).parallel().map(b -> {
+      SplitMixDiceSource source = new SplitMixDiceSource(seed);
+      QwixxTable table = new QwixxTable(numPlayers, 4, 11, 2, source);
+      QwixxPolicy[] policies = new QwixxPolicy[numPlayers];
+      for (int i = 0; i < numPlayers; ++i) {
+        policies[i] = QwixxPolicy.greedy(maxSkip);
+      }
+      long sum = 0;
+      for (long g = b * 1024; g < Math.min(tables, (b + 1) * 1024); ++g) {
+        source.seed(seed ^ SplitMixDiceSource.mix(g));
+        table.reset();
+        table.play(policies);
+        for (int i = 0; i < numPlayers; ++i) {
+          sum += table.player(i).totalScore();
+        }
+      }
+      return sum;
+    }).sum();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%d tables of %d players in %.2fs (%.0f tables/s); mean score %.2f%n", tables, numPlayers,
+        seconds, tables / seconds, (double) points / (tables * numPlayers));
+  }
+}
@@ -0,0 +1,377 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// QwixxTournament.java
+//
+// Compares policies by playing them all on the same dice.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * A paired tournament: every entrant plays each of the tournament's games with
+ * exactly the same rolls of the dice. (A game's rolls are drawn once, then
+ * replayed to each entrant through {@code rollDice(int[])}; an entrant whose
+ * game runs longer draws further rolls from the same stream.) Since luck is
+ * shared, the difference between two entrants' scores on the same game
+ * measures skill alone, and far fewer games are needed to tell two policies
+ * apart than with independent games.
+ * 
+ * Games are split across a {@code ForkJoinPool} as in {@code QwixxSimulator},
+ * and use the same dice: game {@code g} of a tournament rolls what game
+ * {@code g} of a simulator run with the same seed rolls. Each task writes its
+ * games' results to the CSV output as soon as it finishes them, so nothing but
+ * the running totals is kept in memory. Tasks finish in no particular order,
+ * so neither are the CSV rows; every row names its game.
+ */
+public class QwixxTournament {
+
+  // Number of games a leaf task plays before it stops splitting.
+  private static final int LEAF_GAMES = 1024;
+
+  /**
+   * The first line of the CSV output.
+   */
+  public static final String CSV_HEADER = "game,entrant,score,penalties,turns";
+
+  private final int numRows;
+  private final int numCols;
+  private final int numWhiteDice;
+  private final List<String> names = new ArrayList<>();
+  private final List<Supplier<QwixxPolicy>> policies = new ArrayList<>();
+
+  /**
+   * Constructor
+   * 
+   * @param numRows      the number of rows
+   * @param numCols      the number of columns
+   * @param numWhiteDice the number of white dice
+   */
+  public QwixxTournament(int numRows, int numCols, int numWhiteDice) {
+    this.numRows = numRows;
+    this.numCols = numCols;
+    this.numWhiteDice = numWhiteDice;
+  }
+
+  /**
+   * Constructor for a standard board.
+   */
+  public QwixxTournament() {
+    this(4, 11, 2);
+  }
+
+  /**
+   * Enter a policy.
+   * 
+   * @param name     the entrant's name, as it appears in the results
+   * @param policies creates one policy per worker
+   * @return this tournament
+   */
+  public QwixxTournament add(String name, Supplier<QwixxPolicy> policies) {
+    names.add(name);
+    this.policies.add(policies);
+    return this;
+  }
+
+  /**
+   * Play {@code games} games with every entrant on the given pool.
+   * 
+   * @param games the number of games each entrant plays
+   * @param seed  the seed for the tournament's dice
+   * @param pool  the pool to run on
+   * @param csv   where to write one line per entrant per game (after
+   *              {@code CSV_HEADER}), or {@code null}
+   * @return the standings
+   * @throws IOException if the results cannot be written
+   */
+  public Standings run(long games, long seed, ForkJoinPool pool, Writer csv) throws IOException {
+    if (names.size() < 1) {
+      throw new IllegalStateException("A tournament needs at least one entrant.");
+    }
+    if (csv != null) {
+      csv.write(CSV_HEADER + "\n");
+    }
+    long start = System.nanoTime();
+    long[] totals;
+    try {
+      totals = pool.invoke(new Games(seed, 0, games, csv));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    if (csv != null) {
+      csv.flush();
+    }
+    return new Standings(new ArrayList<>(names), games, System.nanoTime() - start, totals);
+  }
+
+  // Offsets into a totals array, for n entrants: each entrant's sum of scores
+  // and sum of squared scores, then for each ordered pair (i, j) the sum of
+  // score differences, the sum of squared differences and i's wins over j.
+  private static int sum(int i) {
+    return 2 * i;
+  }
+
+  private static int squares(int i) {
+    return 2 * i + 1;
+  }
+
+  private static int pair(int n, int i, int j) {
+    return 2 * n + 3 * (i * n + j);
+  }
+
+  private class Games extends RecursiveTask<long[]> {
+    private static final long serialVersionUID = 1L;
+
+    private final long seed;
+    private final long first;
+    private final long games;
+    private final Writer csv;
+
+    Games(long seed, long first, long games, Writer csv) {
+      this.seed = seed;
+      this.first = first;
+      this.games = games;
+      this.csv = csv;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (games > LEAF_GAMES) {
+        long half = games / 2;
+        Games left = new Games(seed, first, half, csv);
+        Games right = new Games(seed, first + half, games - half, csv);
+        left.fork();
+        long[] answer = right.compute();
+        long[] other = left.join();
+        for (int i = 0; i < answer.length; ++i) {
+          answer[i] += other[i];
+        }
+        return answer;
+      }
+
+      int n = names.size();
+      long[] totals = new long[pair(n, n, 0)];
+      QwixxPolicy[] players = new QwixxPolicy[n];
+      for (int i = 0; i < n; ++i) {
+        players[i] = policies.get(i).get();
+      }
+      QwixxModel model = new QwixxModel(numRows, numCols, numWhiteDice);
+      SplitMixDiceSource source = new SplitMixDiceSource(seed);
+      int numDice = model.numDice();
+      int[] dice = new int[numDice];
+      byte[] rolls = new byte[numDice * 64];
+      int[] scores = new int[n];
+      StringBuilder lines = csv == null ? null : new StringBuilder();
+
+      for (long g = first; g < first + games; ++g) {
+        source.seed(seed ^ SplitMixDiceSource.mix(g));
+        int drawn = 0;
+        for (int i = 0; i < n; ++i) {
+          model.reset();
+          int turns = 0;
+          while (!model.gameOver()) {
+            int at = turns * numDice;
+            if (at == drawn) {
+              if (drawn == rolls.length) {
+                rolls = Arrays.copyOf(rolls, 2 * rolls.length);
+              }
+              for (int k = 0; k < numDice; ++k) {
+                rolls[drawn++] = (byte) source.nextDie();
+              }
+            }
+            for (int k = 0; k < numDice; ++k) {
+              dice[k] = rolls[at + k];
+            }
+            model.rollDice(dice);
+            ++turns;
+            QwixxSimulator.playTurn(model, players[i]);
+          }
+
+          scores[i] = model.totalScore();
+          if (lines != null) {
+            lines.append(g).append(',');
+            csvField(lines, names.get(i));
+            lines.append(',').append(scores[i]).append(',').append(model.timesPassed()).append(',').append(turns)
+                .append('\n');
+          }
+        }
+
+        for (int i = 0; i < n; ++i) {
+          totals[sum(i)] += scores[i];
+          totals[squares(i)] += (long) scores[i] * scores[i];
+          for (int j = 0; j < n; ++j) {
+            int difference = scores[i] - scores[j];
+            int p = pair(n, i, j);
+            totals[p] += difference;
+            totals[p + 1] += (long) difference * difference;
+            totals[p + 2] += difference > 0 ? 1 : 0;
+          }
+        }
+      }
+
+      if (lines != null) {
+        try {
+          synchronized (csv) {
+            csv.append(lines);
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return totals;
+    }
+  }
+
+  // Append a CSV field, quoted if it needs to be.
+  private static void csvField(StringBuilder line, String value) {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+      line.append(value);
+    } else {
+      line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+  }
+
+  /**
+   * The outcome of a tournament.
+   */
+  public static class Standings {
+    private final List<String> names;
+    private final long games;
+    private final long elapsedNanos;
+    private final long[] totals;
+
+    Standings(List<String> names, long games, long elapsedNanos, long[] totals) {
+      this.names = names;
+      this.games = games;
+      this.elapsedNanos = elapsedNanos;
+      this.totals = totals;
+    }
+
+    public int entrants() {
+      return names.size();
+    }
+
+    public String name(int i) {
+      return names.get(i);
+    }
+
+    public long games() {
+      return games;
+    }
+
+    public double mean(int i) {
+      return (double) totals[sum(i)] / games;
+    }
+
+    public double stdDev(int i) {
+      return Math.sqrt(variance(totals[sum(i)], totals[squares(i)]));
+    }
+
+    /**
+     * The mean amount by which entrant {@code i} outscored entrant {@code j}
+     * on the same dice.
+     * 
+     * @param i an entrant
+     * @param j another entrant
+     * @return the mean paired difference
+     */
+    public double meanDifference(int i, int j) {
+      return (double) totals[pair(entrants(), i, j)] / games;
+    }
+
+    /**
+     * The standard error of {@code meanDifference(i, j)}. (Because the games
+     * are paired, this is usually far smaller than the standard errors of the
+     * two means.)
+     * 
+     * @param i an entrant
+     * @param j another entrant
+     * @return the standard error
+     */
+    public double differenceStdErr(int i, int j) {
+      int p = pair(entrants(), i, j);
+      return Math.sqrt(variance(totals[p], totals[p + 1]) / games);
+    }
+
+    /**
+     * The number of games in which entrant {@code i} scored more than entrant
+     * {@code j}.
+     * 
+     * @param i an entrant
+     * @param j another entrant
+     * @return the number of wins
+     */
+    public long wins(int i, int j) {
+      return totals[pair(entrants(), i, j) + 2];
+    }
+
+    private double variance(long sum, long squares) {
+      if (games < 2) {
+        return 0;
+      }
+      double mean = (double) sum / games;
+      return Math.max(0, (squares - mean * sum) / (games - 1));
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder();
+      text.append(String.format("%d games per entrant in %.2fs (%.0f games/s)%n", games, elapsedNanos / 1e9,
+          games * entrants() * 1e9 / elapsedNanos));
+      for (int i = 0; i < entrants(); ++i) {
+        text.append(String.format("%-12s mean %7.2f  sd %6.2f", name(i), mean(i), stdDev(i)));
+        for (int j = 0; j < entrants(); ++j) {
+          if (j != i) {
+            text.append(String.format("  vs %s %+.2f +/- %.2f", name(j), meanDifference(i, j),
+                differenceStdErr(i, j)));
+          }
+        }
+        text.append(String.format("%n"));
+      }
+      return text.toString();
+    }
+  }
+
+  /**
+   * Run a tournament between greedy policies of different patience.
+   * 
+   * @param args [games [threads [csvFile]]]
+   * @throws IOException if the CSV file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    QwixxTournament tournament = new QwixxTournament();
+    for (int skip = 0; skip <= 3; ++skip) {
+      int maxSkip = skip;
+      tournament.add("greedy" + skip, () -> QwixxPolicy.greedy(maxSkip));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      if (args.length > 2) {
+        try (BufferedWriter csv = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+          System.out.print(tournament.run(games, System.nanoTime(), pool, csv));
+        }
+      } else {
+        System.out.print(tournament.run(games, System.nanoTime(), pool, null));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
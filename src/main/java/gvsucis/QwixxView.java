@@ -23,6 +23,14 @@ public class QwixxView {
   private static final Color[] rowColors = { Color.red, Color.yellow, Color.green, new Color(49, 140, 231) };
   private static final Border blackBorder = BorderFactory.createLineBorder(Color.black);
 
+  /**
+   * The color of the given row. (Boards with more than four rows reuse the
+   * colors in order.)
+   */
+  private static Color rowColor(int row) {
+    return rowColors[row % rowColors.length];
+  }
+
   private ReadOnlyQwixxModel model;
 
   private JFrame frame;
@@ -31,7 +39,7 @@ public class QwixxView {
   private JButton passWhite;
   private JButton passColor;
 
-  private JButton[][] numberLabels;
+  private NumberGrid numberGrid;
   private JLabel[] diceLabels;
   private JLabel scoreLabels[];
   private JLabel penaltyLabels[];
@@ -54,44 +62,27 @@ public class QwixxView {
     //
     // Number Panel
     //
-    int USE_LOCK = 0; // Whether to include the "lock" column that is used in two-player games.
-    // 
 
-    JPanel numberPanel = new JPanel();
-    numberPanel.setLayout(new GridLayout(model.numRows(), model.numColumns() + USE_LOCK, 5, 5));
-
-    numberLabels = new JButton[model.numRows()][model.numColumns() + USE_LOCK];
-    for (int row = 0; row < model.numRows(); row++) {
-      for (int col = 0; col < model.numColumns(); col++) {
-        JButton l = new JButton("");
-        l.setBackground(rowColors[row]);
-        l.setOpaque(true);
-        l.setBorder(blackBorder);
-        numberPanel.add(l);
-        numberLabels[row][col] = l;
-      }
-
-      // 
-
-      numberPanel.setBorder(new EmptyBorder(15, 15, 15, 15));
-    }
+    // The boxes are painted by a single component rather than one JButton each,
+    // so large custom boards stay cheap to lay out and repaint.
+    numberGrid = new NumberGrid(model, rowColors);
 
     //
     // Dice Panel
     //
     JPanel dicePanel = new JPanel();
 
-    diceLabels = new JLabel[model.diceValues().length];
+    diceLabels = new JLabel[model.numDice()];
     dicePanel.setLayout(new FlowLayout());
     for (int i = 0; i < diceLabels.length; i++) {
-      diceLabels[i] = new JLabel(model.diceValues()[i], SwingConstants.CENTER);
+      diceLabels[i] = new JLabel(Integer.toString(model.die(i)), SwingConstants.CENTER);
       JLabel l = diceLabels[i];
       l.setMinimumSize(new Dimension(25, 25));
       l.setPreferredSize(new Dimension(25, 25));
       l.setMaximumSize(new Dimension(25, 25));
 
-      if (i >= 2) {
-        l.setBackground(rowColors[i - 2]);
+      if (i >= model.numWhiteDice()) {
+        l.setBackground(rowColor(i - model.numWhiteDice()));
         l.setOpaque(true);
       }
       l.setBorder(blackBorder);
@@ -126,7 +117,7 @@ public class QwixxView {
       l.setMinimumSize(new Dimension(40, 25));
       l.setPreferredSize(new Dimension(40, 25));
       l.setMaximumSize(new Dimension(40, 25));
-      l.setBackground(rowColors[i]);
+      l.setBackground(rowColor(i));
       l.setOpaque(true);
       l.setBorder(blackBorder);
       scorePanel.add(l);
@@ -181,7 +172,7 @@ public class QwixxView {
     //
     JPanel panel = new JPanel();
     panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-    panel.add(numberPanel);
+    panel.add(numberGrid);
     panel.add(dicePanel);
     panel.add(scorePanel);
     panel.add(buttonPanel);
@@ -195,6 +186,7 @@ public class QwixxView {
     frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
     this.update();
+    model.addListener(new ModelListener());
     frame.pack();
     frame.setVisible(true);
   }
@@ -234,58 +226,142 @@ public class QwixxView {
    * @param lambda the code invoked when the box is clicked.
    */
   public void addNumberButtonListener(BiConsumer<Integer, Integer> lambda) {
-    for (int row = 0; row < model.numRows(); ++row) {
-      for (int col = 0; col < model.numColumns(); ++col) {
-
-        // externally declared variables used in lambdas must be constant.
-        // Therefore, we create constant copies of row and column so they can be
-        // referenced in the lambda below.
-        final int localRow = row;
-        final int localColumn = col;
-        numberLabels[row][col].addActionListener(e -> {
-          System.out.printf("In view.  Calling lambda with (%d, %d)\n", localRow, localColumn);
-          lambda.accept(localRow, localColumn);
-        });
-      }
-    }
+    numberGrid.addCellListener((row, col) -> {
+      System.out.printf("In view.  Calling lambda with (%d, %d)\n", row, col);
+      lambda.accept(row, col);
+    });
   }
 
   /**
    * Update the view based on the current state of the model.
+   * 
+   * (The view also subscribes to the model's changes, and applies each one as
+   * it happens, so this full refresh is only needed to draw the initial state
+   * and after a reset, undo or redo.)
    */
   public void update() {
-    
-    // update the dice values.
-    for (int i = 0; i < model.diceValues().length; ++i) {
-      diceLabels[i].setText(model.diceValues()[i]);
-    }
+    updateDice();
 
-    // update the number boxes
-    for (int r = 0; r < model.numberValues().length; ++r) {
-      for (int c = 0; c < model.numberValues()[r].length; ++c) {
-        numberLabels[r][c].setText(model.numberValues()[r][c]);
-      }
+    // update the number boxes (only those that changed are repainted)
+    numberGrid.refresh();
+
+    updateScores();
+    updatePenalties();
+    updateButtons();
+  }
+
+  // update the dice values.
+  // (The primitive accessors avoid building a fresh array on every call.)
+  private void updateDice() {
+    for (int i = 0; i < model.numDice(); ++i) {
+      diceLabels[i].setText(Integer.toString(model.die(i)));
     }
+  }
 
-    // update the scores
-    for (int i = 0; i < model.scoreValues().length; ++i) {
-      scoreLabels[i].setText(model.scoreValues()[i]);
+  // update one row's score, then the penalty and total scores.
+  private void updateScores(int row) {
+    scoreLabels[row].setText(Integer.toString(model.rowScore(row)));
+    updateTotals();
+  }
+
+  // update every row's score, then the penalty and total scores.
+  private void updateScores() {
+    for (int i = 0; i < model.numRows(); ++i) {
+      scoreLabels[i].setText(Integer.toString(model.rowScore(i)));
     }
+    updateTotals();
+  }
+
+  private void updateTotals() {
+    scoreLabels[model.numRows()].setText(Integer.toString(model.penaltyScore()));
+    scoreLabels[model.numRows() + 1].setText(Integer.toString(model.totalScore()));
+  }
 
-    // update the penalties
-    for (int i = 0; i < model.timesPassed(); ++i) {
-      penaltyLabels[i].setText("-5");
+  // update the penalties
+  private void updatePenalties() {
+    for (int i = 0; i < penaltyLabels.length; ++i) {
+      penaltyLabels[i].setText(i < model.timesPassed() ? "-5" : " ");
     }
+  }
 
-    // enable/disable the buttons based on the current state of the game.
+  // enable/disable the buttons based on the current state of the game, and
+  // update the status message
+  private void updateButtons() {
     rollButton.setEnabled(model.canRoll());
     passWhite.setEnabled(model.canPassWhite());
     passColor.setEnabled(model.canPassColor());
-
-    // update the status message
     statusMessageLabel.setText(model.statusMessage());
   }
 
+  /**
+   * Applies each change to the model as it is made. Each change is timed for
+   * {@code QwixxMetrics} and the {@code gvsucis.ViewUpdate} event, when either
+   * is listening.
+   */
+  private class ModelListener implements QwixxListener {
+    @Override
+    public void diceRolled(ReadOnlyQwixxModel model) {
+      long start = startTiming();
+      updateDice();
+      stopTiming(start);
+    }
+
+    @Override
+    public void boxCrossed(ReadOnlyQwixxModel model, int row, int col) {
+      long start = startTiming();
+      numberGrid.repaintCell(row, col);
+      updateScores(row);
+      stopTiming(start);
+    }
+
+    @Override
+    public void penaltyTaken(ReadOnlyQwixxModel model, int total) {
+      long start = startTiming();
+      penaltyLabels[total - 1].setText("-5");
+      updateTotals();
+      stopTiming(start);
+    }
+
+    @Override
+    public void phaseChanged(ReadOnlyQwixxModel model) {
+      long start = startTiming();
+      updateButtons();
+      stopTiming(start);
+    }
+
+    @Override
+    public void gameReset(ReadOnlyQwixxModel model) {
+      long start = startTiming();
+      update();
+      stopTiming(start);
+    }
+
+    @Override
+    public void moveUndone(ReadOnlyQwixxModel model) {
+      long start = startTiming();
+      update();
+      stopTiming(start);
+    }
+
+    @Override
+    public void moveRedone(ReadOnlyQwixxModel model) {
+      long start = startTiming();
+      update();
+      stopTiming(start);
+    }
+  }
+
+  // The time a change started being applied, or 0 if no one is timing them.
+  private static long startTiming() {
+    return QwixxEvents.timingViewUpdates() ? System.nanoTime() : 0;
+  }
+
+  private static void stopTiming(long start) {
+    if (start != 0) {
+      QwixxEvents.viewUpdated(System.nanoTime() - start);
+    }
+  }
+
   /**
    * Display a modal dialog box with an error message.
    * 
@@ -83,13 +83,22 @@ public interface ReadOnlyQwixxModel {
 
   /**
    * Whether the player is allowed to pass on selecting a number based on the
-   * colored dice. (Doing so always results in a penalty.)
+   * colored dice. (Doing so results in a penalty unless the player crossed out
+   * a number using the white dice this turn.)
    * 
    * @return {@code true} if the player may pass the selection based on the
    *         colored dice.
    */
   public boolean canPassColor();
 
+  /**
+   * Whether the player has crossed out a number since the dice were last
+   * rolled.
+   * 
+   * @return {@code true} if a number has been crossed out this turn.
+   */
+  public boolean markedThisTurn();
+
   /**
    * Whether the game has ended.
    * 
@@ -122,6 +131,24 @@ public interface ReadOnlyQwixxModel {
    */
   public String[][] numberValues();
 
+  /**
+   * One page of {@code numberValues()}: the given rows only, so that readers of
+   * large boards need not build the whole grid at once.
+   * 
+   * @param firstRow the first row of the page
+   * @param rowCount the number of rows in the page
+   * @return the rows' numbers, with "X" for those crossed out
+   */
+  public default String[][] numberValues(int firstRow, int rowCount) {
+    String[][] answer = new String[rowCount][numColumns()];
+    for (int i = 0; i < rowCount; ++i) {
+      for (int col = 0; col < numColumns(); ++col) {
+        answer[i][col] = isMarked(firstRow + i, col) ? "X" : Integer.toString(numberAt(firstRow + i, col));
+      }
+    }
+    return answer;
+  }
+
   /**
    * A view of the current score. The first four values in the array contain the
    * score for each corresponding color row. The next value is the total penalty
@@ -131,6 +158,107 @@ public interface ReadOnlyQwixxModel {
    */
   public String[] scoreValues();
 
+  /**
+   * The number of dice (white dice first, followed by one colored die per row)
+   * 
+   * @return the number of dice
+   */
+  public int numDice();
+
+  /**
+   * The current value of a single die. Unlike {@code diceValues()}, this method
+   * does not allocate.
+   * 
+   * @param i the index of the die (in the same order as {@code diceValues()})
+   * @return the value of the die (0 before the first roll)
+   */
+  public int die(int i);
+
+  /**
+   * Copy the current dice values into the given array without allocating.
+   * 
+   * @param dst an array of at least {@code numDice()} elements
+   */
+  public void copyDiceInto(int[] dst);
+
+  /**
+   * The number printed in the given box.
+   * 
+   * @param row the row of the box
+   * @param col the index of the column of the box
+   * @return the number printed in the box
+   */
+  public int numberAt(int row, int col);
+
+  /**
+   * Whether the given box has been crossed out.
+   * 
+   * @param row the row of the box
+   * @param col the index of the column of the box
+   * @return {@code true} if the box has been crossed out
+   */
+  public boolean isMarked(int row, int col);
+
+  /**
+   * The index of the rightmost box crossed out in the given row.
+   * 
+   * @param row the row
+   * @return the column index, or -1 if no box in the row has been crossed out
+   */
+  public int lastMarked(int row);
+
+  /**
+   * The boxes in columns 0 to 63 of the given row that may be crossed out right
+   * now: those a call to {@code numberSelected} would accept as {@code VALID}.
+   * On boards wider than 64 columns, legal boxes further right are left out;
+   * {@code nextLegalMove} finds them.
+   * 
+   * @param row the row
+   * @return a bitmask with bit {@code col} set for each legal column (0 when
+   *         the player may not select)
+   */
+  public long legalMoves(int row);
+
+  /**
+   * The leftmost box at or right of column {@code from} in the given row that
+   * may be crossed out right now. Unlike {@code legalMoves}, this works on
+   * boards of any width. (The default uses {@code legalMoves}; models of wider
+   * boards override it.)
+   * 
+   * @param row  the row
+   * @param from the first column to consider
+   * @return the column index, or -1 if there is no such box
+   */
+  public default int nextLegalMove(int row, int from) {
+    if (from >= Long.SIZE) {
+      return -1;
+    }
+    long legal = legalMoves(row) & (-1L << Math.max(0, from));
+    return legal == 0 ? -1 : Long.numberOfTrailingZeros(legal);
+  }
+
+  /**
+   * The score for a single row.
+   * 
+   * @param row the row
+   * @return the score for that row
+   */
+  public int rowScore(int row);
+
+  /**
+   * The total penalty (5 x penalties taken)
+   * 
+   * @return the total penalty
+   */
+  public int penaltyScore();
+
+  /**
+   * The total score: the sum of the row scores, less the penalty.
+   * 
+   * @return the total score
+   */
+  public int totalScore();
+
   /**
    * The number of times the player has elected to take a penalty and not cross
    * out a number based on the colored dice.
@@ -139,4 +267,19 @@ public interface ReadOnlyQwixxModel {
    */
   public int timesPassed();
 
+  /**
+   * Subscribe to changes to this game. (Listening does not modify the game, so
+   * views may subscribe through this read-only interface.)
+   * 
+   * @param listener the listener to notify of each change
+   */
+  public void addListener(QwixxListener listener);
+
+  /**
+   * Stop notifying the given listener.
+   * 
+   * @param listener a listener previously passed to {@code addListener}
+   */
+  public void removeListener(QwixxListener listener);
+
 }
@@ -0,0 +1,103 @@
+/////////////////////////////////////////////////////////////////////////////////////
+//
+// SplitMixDiceSource.java
+//
+// A seeded, splittable source of die rolls.
+//
+///////////////////////////////////////////////////////////////////////////////////
+
+package gvsucis;
+
+/**
+ * A deterministic {@code DiceSource} built on the SplitMix64 generator (the
+ * algorithm behind {@code java.util.SplittableRandom}). Unlike
+ * {@code SplittableRandom}, it can be re-seeded in place, so a simulation can
+ * give every game its own reproducible stream without allocating.
+ */
+public class SplitMixDiceSource implements DiceSource {
+
+  // (QwixxModel also steps by it to derive its Zobrist keys.)
+  static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  // 2^32 mod 6: 32-bit values below this are rejected so every face is equally
+  // likely.
+  private static final long REJECT = (1L << 32) % 6;
+
+  private long state;
+
+  // Each 64-bit output supplies two 32-bit halves; spare holds the unused half.
+  private long spare;
+  private boolean haveSpare;
+
+  /**
+   * Constructor
+   * 
+   * @param seed the seed
+   */
+  public SplitMixDiceSource(long seed) {
+    seed(seed);
+  }
+
+  /**
+   * Restart this source as if it had just been constructed with {@code seed}.
+   * 
+   * @param seed the seed
+   */
+  public void seed(long seed) {
+    state = seed;
+    haveSpare = false;
+  }
+
+  /**
+   * Create a new source whose stream is independent of this one.
+   * 
+   * @return the new source
+   */
+  public SplitMixDiceSource split() {
+    return new SplitMixDiceSource(nextLong());
+  }
+
+  /**
+   * The next raw 64-bit value.
+   * 
+   * @return a uniformly distributed long
+   */
+  public long nextLong() {
+    return mix(state += GOLDEN_GAMMA);
+  }
+
+  /**
+   * The SplitMix64 finalizer. Also useful for deriving well-spread seeds from
+   * consecutive integers.
+   * 
+   * @param z any value
+   * @return a scrambled value
+   */
+  public static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  @Override
+  public int nextDie() {
+    while (true) {
+      long bits;
+      if (haveSpare) {
+        bits = spare;
+        haveSpare = false;
+      } else {
+        long next = nextLong();
+        bits = next & 0xffffffffL;
+        spare = next >>> 32;
+        haveSpare = true;
+      }
+
+      // Lemire's multiply-shift: the high 32 bits of bits * 6 are in [0, 6).
+      long product = bits * 6;
+      if ((product & 0xffffffffL) >= REJECT) {
+        return (int) (product >>> 32) + 1;
+      }
+    }
+  }
+}
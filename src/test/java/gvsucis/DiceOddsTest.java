@@ -0,0 +1,62 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiceOddsTest {
+
+  @ParameterizedTest
+  @DisplayName("odds match enumerating every roll")
+  @ValueSource(ints = { 1, 2, 3, 4 })
+  public void oddsMatchEnumeration(int numWhiteDice) {
+    int dice = numWhiteDice + 1;
+    int rolls = (int) Math.pow(6, dice);
+    double[] white = new double[13];
+    double[] color = new double[13];
+    double[] either = new double[13];
+    int[] d = new int[dice];
+    for (int r = 0; r < rolls; ++r) {
+      for (int i = 0, x = r; i < dice; ++i, x /= 6) {
+        d[i] = x % 6 + 1;
+      }
+      for (int n = 2; n <= 12; ++n) {
+        boolean w = false;
+        boolean c = false;
+        for (int i = 0; i < numWhiteDice; ++i) {
+          for (int j = i + 1; j < numWhiteDice; ++j) {
+            w |= d[i] + d[j] == n;
+          }
+          c |= d[i] + d[numWhiteDice] == n;
+        }
+        white[n] += w ? 1.0 / rolls : 0;
+        color[n] += c ? 1.0 / rolls : 0;
+        either[n] += w || c ? 1.0 / rolls : 0;
+      }
+    }
+
+    DiceOdds odds = DiceOdds.forWhiteDice(numWhiteDice);
+    for (int n = 2; n <= 12; ++n) {
+      assertEquals(white[n], odds.whiteHit(n), 1e-12, "white " + n);
+      assertEquals(color[n], odds.colorHit(n), 1e-12, "color " + n);
+      assertEquals(either[n], odds.eitherHit(n), 1e-12, "either " + n);
+    }
+  }
+
+  @Test
+  @DisplayName("standard white odds are the 2d6 distribution")
+  public void standardWhiteOdds() {
+    DiceOdds odds = DiceOdds.forWhiteDice(2);
+    assertEquals(6 / 36.0, odds.whiteHit(7), 1e-12);
+    assertEquals(1 / 36.0, odds.whiteHit(12), 1e-12);
+    assertEquals(0, odds.whiteHit(13));
+  }
+
+  @Test
+  @DisplayName("games with the same number of white dice share their odds")
+  public void oddsAreShared() {
+    assertSame(new QwixxModel().diceOdds(), new QwixxModel(6, 20, 2).diceOdds());
+    assertNotSame(new QwixxModel().diceOdds(), new QwixxModel(4, 11, 3).diceOdds());
+  }
+}
@@ -0,0 +1,65 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiceSourceTest {
+
+  @Test
+  @DisplayName("seeded sources repeat their rolls")
+  public void seededSourcesRepeat() {
+    SplitMixDiceSource a = DiceSource.seeded(1234);
+    SplitMixDiceSource b = DiceSource.seeded(1234);
+    for (int i = 0; i < 1000; ++i) {
+      assertEquals(a.nextDie(), b.nextDie());
+    }
+
+    a.seed(99);
+    int[] first = new int[6];
+    a.roll(first);
+    a.seed(99);
+    int[] second = new int[6];
+    a.roll(second);
+    assertArrayEquals(first, second);
+  }
+
+  @Test
+  @DisplayName("every face comes up roughly equally often")
+  public void facesAreUniform() {
+    DiceSource source = DiceSource.seeded(7);
+    int[] counts = new int[7];
+    int n = 600_000;
+    for (int i = 0; i < n; ++i) {
+      int die = source.nextDie();
+      assertTrue(die >= 1 && die <= 6, "Bad die " + die);
+      ++counts[die];
+    }
+    for (int face = 1; face <= 6; ++face) {
+      assertEquals(n / 6.0, counts[face], n / 6.0 * 0.02, "face " + face);
+    }
+  }
+
+  @Test
+  @DisplayName("buffering does not change the sequence of rolls")
+  public void bufferedMatchesUnbuffered() {
+    DiceSource plain = DiceSource.seeded(5);
+    DiceSource buffered = new BufferedDiceSource(DiceSource.seeded(5), 7);
+    int[] dice = new int[6];
+    for (int i = 0; i < 100; ++i) {
+      buffered.roll(dice);
+      for (int die : dice) {
+        assertEquals(plain.nextDie(), die);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("QwixxModel rolls from the injected source")
+  public void modelUsesInjectedSource() {
+    QwixxModel a = new QwixxModel(4, 11, 2, DiceSource.seeded(11));
+    QwixxModel b = new QwixxModel(4, 11, 2, DiceSource.seeded(11));
+    a.rollDice();
+    b.rollDice();
+    assertArrayEquals(a.diceValues(), b.diceValues());
+  }
+}
@@ -0,0 +1,77 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpectimaxSolverTest {
+
+  // The best total score reachable this turn, found by trying every decision
+  // on a real model.
+  private static int bestAfterTurn(QwixxModel model, int[] dice) {
+    int best = Integer.MIN_VALUE;
+    model.reset();
+    model.rollDice(dice);
+    long[] white = new long[model.numRows()];
+    model.legalMoves(white);
+    for (int wr = -1; wr < model.numRows(); ++wr) {
+      for (long w = wr < 0 ? 1 : white[wr]; w != 0; w &= w - 1) {
+        model.reset();
+        model.rollDice(dice);
+        if (wr < 0) {
+          model.passWhite();
+        } else {
+          model.numberSelected(wr, Long.numberOfTrailingZeros(w));
+        }
+        long[] color = new long[model.numRows()];
+        model.legalMoves(color);
+        int afterWhite = model.totalScore();
+        int penalty = model.markedThisTurn() ? 0 : 5;
+        best = Math.max(best, afterWhite - penalty);
+        for (int cr = 0; cr < model.numRows(); ++cr) {
+          for (long c = color[cr]; c != 0; c &= c - 1) {
+            // Marking one more box in a row with n boxes adds n + 1 points.
+            int n = 0;
+            for (int col = 0; col < model.numColumns(); ++col) {
+              n += model.isMarked(cr, col) ? 1 : 0;
+            }
+            best = Math.max(best, afterWhite + n + 1);
+          }
+        }
+      }
+    }
+    return best;
+  }
+
+  @Test
+  @DisplayName("#expectedScore at depth 1 matches enumerating every roll")
+  public void depthOneMatchesBruteForce() {
+    QwixxModel model = new QwixxModel();
+    double sum = 0;
+    int[] dice = new int[6];
+    for (int r = 0; r < 46656; ++r) {
+      for (int i = 0, x = r; i < 6; ++i, x /= 6) {
+        dice[i] = x % 6 + 1;
+      }
+      sum += bestAfterTurn(model, dice);
+    }
+
+    // With no credit for open boxes, the horizon is just the score.
+    ExpectimaxSolver solver = new ExpectimaxSolver(new QwixxModel(), 1, 10, 0);
+    assertEquals(sum / 46656, solver.expectedScore(new QwixxModel()), 1e-9);
+  }
+
+  @Test
+  @DisplayName("the solver only makes legal moves")
+  public void solverPlaysLegalGames() {
+    ExpectimaxSolver solver = new ExpectimaxSolver(new QwixxModel(), 1, 16);
+    QwixxModel model = new QwixxModel(4, 11, 2, DiceSource.seeded(3));
+    QwixxSimulator.playGame(model, solver);
+    assertTrue(model.gameOver());
+  }
+
+  @Test
+  @DisplayName("the solver rejects boards whose positions do not fit in a key")
+  public void rejectsLargeBoards() {
+    assertThrows(IllegalArgumentException.class, () -> new ExpectimaxSolver(new QwixxModel(5, 11, 2), 1, 10));
+  }
+}
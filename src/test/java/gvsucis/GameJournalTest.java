@@ -0,0 +1,120 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GameJournalTest {
+
+  @TempDir
+  Path dir;
+
+  private static String describe(ReadOnlyQwixxModel model) {
+    StringBuilder answer = new StringBuilder();
+    answer.append(Arrays.toString(model.diceValues())).append(' ');
+    answer.append(Arrays.toString(model.scoreValues())).append(' ');
+    for (int row = 0; row < model.numRows(); ++row) {
+      answer.append(model.lastMarked(row)).append(',');
+    }
+    return answer.append(model.gameOver()).toString();
+  }
+
+  // Record some games, returning a description of each final board.
+  private List<String> record(Path path, int games, QwixxModel model) throws IOException {
+    List<String> finals = new ArrayList<>();
+    try (GameJournal journal = new GameJournal(path)) {
+      journal.record(model);
+      for (int g = 0; g < games; ++g) {
+        QwixxSimulator.playGame(model, QwixxPolicy.greedy(g % 3));
+        finals.add(describe(model));
+        model.reset();
+      }
+    }
+    return finals;
+  }
+
+  @Test
+  @DisplayName("#replayAll rebuilds every recorded game")
+  public void replayAll() throws IOException {
+    Path path = dir.resolve("games.qj");
+    QwixxModel model = new QwixxModel(4, 11, 2, new SplitMixDiceSource(7));
+    List<String> finals = record(path, 200, model);
+
+    // A tiny window forces many remaps.
+    List<String> replayed = new ArrayList<>();
+    try (JournalReader reader = new JournalReader(path, 4096)) {
+      reader.replayAll(m -> replayed.add(describe(m)));
+    }
+
+    // The reset after the last game starts one more (empty) game.
+    assertEquals(finals.size() + 1, replayed.size());
+    assertEquals(finals, replayed.subList(0, finals.size()));
+  }
+
+  @Test
+  @DisplayName("#replay rebuilds a game part way through")
+  public void replayPartOfGame() throws IOException {
+    Path path = dir.resolve("game.qj");
+    QwixxModel model = new QwixxModel(4, 11, 2, new SplitMixDiceSource(11));
+    String partWay;
+    try (GameJournal journal = new GameJournal(path)) {
+      journal.record(model);
+      QwixxSimulator.playGame(model, QwixxPolicy.greedy(1));
+      model.reset();
+      model.rollDice(new int[] { 1, 2, 3, 4, 5, 6 });
+      model.passWhite();
+      model.passColor();
+      model.rollDice(new int[] { 6, 5, 4, 3, 2, 1 });
+      partWay = describe(model);
+      assertEquals(QwixxModel.StatusCode.VALID, model.numberSelected(0, 9));
+    }
+
+    try (JournalReader reader = new JournalReader(path)) {
+      QwixxModel replayed = reader.replay(1, 4);
+      assertEquals(partWay, describe(replayed));
+      assertTrue(replayed.canPassWhite());
+      assertEquals(9, reader.replay(1, Long.MAX_VALUE).lastMarked(0));
+    }
+  }
+
+  @Test
+  @DisplayName("#replay rejects a game that was never recorded")
+  public void replayMissingGame() throws IOException {
+    Path path = dir.resolve("empty.qj");
+    record(path, 1, new QwixxModel());
+    try (JournalReader reader = new JournalReader(path)) {
+      assertThrows(IllegalArgumentException.class, () -> reader.replay(5, Long.MAX_VALUE));
+    }
+  }
+
+  @Test
+  @DisplayName("undone and redone moves are replayed")
+  public void replayUndo() throws IOException {
+    Path path = dir.resolve("undo.qj");
+    QwixxModel model = new QwixxModel();
+    model.keepHistory(8);
+    try (GameJournal journal = new GameJournal(path)) {
+      journal.record(model);
+      model.rollDice(new int[] { 6, 5, 4, 3, 2, 1 });
+      model.numberSelected(0, 9);
+      model.undo();
+      model.numberSelected(1, 9);
+      model.passColor();
+      model.undo();
+      model.redo();
+    }
+
+    try (JournalReader reader = new JournalReader(path)) {
+      QwixxModel replayed = reader.replay(0, Long.MAX_VALUE);
+      assertEquals(describe(model), describe(replayed));
+      assertEquals(-1, replayed.lastMarked(0));
+      assertEquals(9, replayed.lastMarked(1));
+    }
+  }
+}
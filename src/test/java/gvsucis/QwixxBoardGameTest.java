@@ -0,0 +1,132 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+public class QwixxBoardGameTest {
+
+  // Counts every notification, so two games can be compared event for event.
+  private static class Counter implements QwixxListener {
+    final int[] counts = new int[6];
+
+    @Override
+    public void diceRolled(ReadOnlyQwixxModel model) {
+      ++counts[0];
+    }
+
+    @Override
+    public void boxCrossed(ReadOnlyQwixxModel model, int row, int col) {
+      ++counts[1];
+    }
+
+    @Override
+    public void whitePassed(ReadOnlyQwixxModel model) {
+      ++counts[2];
+    }
+
+    @Override
+    public void colorPassed(ReadOnlyQwixxModel model) {
+      ++counts[3];
+    }
+
+    @Override
+    public void penaltyTaken(ReadOnlyQwixxModel model, int total) {
+      ++counts[4];
+    }
+
+    @Override
+    public void gameOver(ReadOnlyQwixxModel model) {
+      ++counts[5];
+    }
+  }
+
+  @Test
+  @DisplayName("plays exactly the games QwixxModel plays with the same dice")
+  public void agreesWithModel() {
+    int[][] shapes = { { 4, 11, 2 }, { 6, 20, 3 }, { 3, 64, 2 } };
+    for (int[] shape : shapes) {
+      for (long seed = 0; seed < 200; ++seed) {
+        QwixxModel model = new QwixxModel(shape[0], shape[1], shape[2], new SplitMixDiceSource(seed));
+        QwixxBoardGame game = new QwixxBoardGame(shape[0], shape[1], shape[2], new SplitMixDiceSource(seed));
+        Counter modelEvents = new Counter();
+        Counter gameEvents = new Counter();
+        model.addListener(modelEvents);
+        game.addListener(gameEvents);
+        QwixxPolicy policy = QwixxPolicy.greedy((int) (seed % 3));
+
+        String where = Arrays.toString(shape) + " seed " + seed;
+        assertEquals(QwixxSimulator.playGame(model, policy), QwixxSimulator.playGame(game, policy), where);
+        assertEquals(model.totalScore(), game.totalScore(), where);
+        assertArrayEquals(model.scoreValues(), game.scoreValues(), where);
+        assertArrayEquals(model.numberValues(), game.numberValues(), where);
+        assertArrayEquals(model.numberValues(1, 2), game.numberValues(1, 2), where);
+        assertArrayEquals(modelEvents.counts, gameEvents.counts, where);
+        assertEquals(model.statusMessage(), game.statusMessage(), where);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("reports the same statuses as QwixxModel")
+  public void statuses() {
+    QwixxBoardGame game = new QwixxBoardGame(2, 100, 2);
+    assertEquals(QwixxModel.StatusCode.MUST_ROLL, game.numberSelected(0, 0));
+
+    game.rollDice(new int[] { 1, 1, 1, 1 });
+    assertEquals(0, game.nextLegalMove(0, 0));
+    assertEquals(99, game.nextLegalMove(1, 0));
+    assertEquals(1L, game.legalMoves(0));
+    assertEquals(0L, game.legalMoves(1));
+    assertEquals(-1, game.nextLegalMove(1, 100));
+    assertEquals(QwixxModel.StatusCode.DICE_DONT_MATCH, game.numberSelected(0, 1));
+    assertEquals(QwixxModel.StatusCode.DICE_DONT_MATCH, game.numberSelected(1, 0));
+    assertEquals(QwixxModel.StatusCode.VALID, game.numberSelected(1, 99));
+    assertTrue(game.canPassColor());
+    assertEquals(QwixxModel.StatusCode.EXCLUDED, game.numberSelected(1, 99));
+    assertEquals(-1, game.nextLegalMove(1, 0));
+    game.passColor();
+    assertEquals(0, game.timesPassed());
+    assertEquals(1, game.totalScore());
+
+    assertThrows(IllegalArgumentException.class, () -> new QwixxBoardGame(4, 11, 1));
+  }
+
+  @Test
+  @DisplayName("plays whole games on a 300x500 board without storing the grid")
+  public void bigBoard() {
+    QwixxBoardGame game = new QwixxBoardGame(300, 500, 2, new SplitMixDiceSource(11));
+    for (int g = 0; g < 5; ++g) {
+      game.reset();
+      int turns = QwixxSimulator.playGame(game, QwixxPolicy.greedy(1));
+      assertTrue(game.gameOver());
+      assertTrue(turns >= game.maxPenalties());
+      assertTrue(game.storedWords() <= game.numRows(), "words " + game.storedWords());
+
+      int score = -game.penaltyScore();
+      for (int row = 0; row < game.numRows(); ++row) {
+        score += game.rowScore(row);
+        for (int col = game.nextMarked(row, 0); col >= 0; col = game.nextMarked(row, col + 1)) {
+          assertTrue(game.numberAt(row, col) <= 12);
+        }
+      }
+      assertEquals(score, game.totalScore());
+    }
+
+    String[][] page = game.numberValues(298, 2);
+    assertEquals(2, page.length);
+    assertEquals(500, page[0].length);
+  }
+
+  @Test
+  @DisplayName("the simulator plays boards wider than 64 columns")
+  public void simulatorOnWideBoard() {
+    QwixxSimulator.Result result = new QwixxSimulator(3, 100, 2, () -> QwixxPolicy.greedy(1)).run(2_000, 5);
+    long total = 0;
+    for (int score = -20; score <= 3 * 66; ++score) {
+      total += result.count(score);
+    }
+    assertEquals(2_000, total);
+  }
+}
@@ -0,0 +1,119 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+public class QwixxBoardTest {
+
+  @Test
+  @DisplayName("a large board agrees with a plain grid after random moves")
+  public void agreesWithGrid() {
+    int rows = 300;
+    int cols = 500;
+    QwixxBoard board = new QwixxBoard(rows, cols);
+    boolean[][] grid = new boolean[rows][cols];
+    int[] last = new int[rows];
+    java.util.Arrays.fill(last, -1);
+    long score = 0;
+    Random random = new Random(7);
+
+    for (int move = 0; move < 20_000; ++move) {
+      int row = random.nextInt(rows);
+      int col = random.nextInt(cols);
+      QwixxModel.StatusCode status = board.cross(row, col);
+      if (col <= last[row]) {
+        assertEquals(QwixxModel.StatusCode.EXCLUDED, status);
+      } else {
+        assertEquals(QwixxModel.StatusCode.VALID, status);
+        grid[row][col] = true;
+        last[row] = col;
+      }
+    }
+
+    for (int row = 0; row < rows; ++row) {
+      int count = 0;
+      for (int col = 0; col < cols; ++col) {
+        assertEquals(grid[row][col], board.isMarked(row, col));
+        count += grid[row][col] ? 1 : 0;
+      }
+      assertEquals(count, board.count(row));
+      assertEquals(last[row], board.lastMarked(row));
+      score += (long) count * (count + 1) / 2;
+    }
+    assertEquals(score, board.boardScore());
+  }
+
+  @Test
+  @DisplayName("boxes off the board are rejected instead of spilling into the next row")
+  public void bounds() {
+    QwixxBoard board = new QwixxBoard(2, 64);
+    assertThrows(IndexOutOfBoundsException.class, () -> board.cross(0, 64));
+    assertThrows(IndexOutOfBoundsException.class, () -> board.cross(0, -1));
+    assertThrows(IndexOutOfBoundsException.class, () -> board.cross(2, 0));
+    assertThrows(IndexOutOfBoundsException.class, () -> board.cross(-1, 0));
+    assertThrows(IndexOutOfBoundsException.class, () -> board.isMarked(0, 64));
+    assertFalse(board.isMarked(1, 0));
+    assertEquals(0, board.count(0));
+    assertEquals(0, board.count(1));
+    assertEquals(0, board.boardScore());
+    assertEquals(0, board.storedWords());
+
+    assertEquals(QwixxModel.StatusCode.VALID, board.cross(0, 63));
+    assertEquals(QwixxModel.StatusCode.VALID, board.cross(1, 0));
+    assertEquals(1, board.count(0));
+    assertEquals(1, board.count(1));
+  }
+
+  @Test
+  @DisplayName("memory grows with the moves made, not the size of the board")
+  public void sparse() {
+    QwixxBoard board = new QwixxBoard(1000, 100_000);
+    assertEquals(0, board.storedWords());
+    for (int row = 0; row < 1000; row += 10) {
+      board.cross(row, 5);
+      board.cross(row, 50);
+      board.cross(row, 99_999);
+    }
+    assertEquals(200, board.storedWords());
+    assertEquals(100 * 6, board.boardScore());
+    board.clear();
+    assertEquals(0, board.storedWords());
+    assertFalse(board.isMarked(0, 5));
+    assertEquals(-1, board.lastMarked(0));
+  }
+
+  @Test
+  @DisplayName("#page and #nextMarked read the board without the whole grid")
+  public void readers() {
+    QwixxBoard board = new QwixxBoard(4, 200);
+    board.cross(1, 3);
+    board.cross(1, 64);
+    board.cross(1, 190);
+    board.cross(2, 70);
+
+    long[] page = new long[2 * 3];
+    board.page(1, 2, 0, 3, page);
+    assertArrayEquals(new long[] { 1L << 3, 1L, 1L << (190 - 128), 0L, 1L << 6, 0L }, page);
+
+    assertEquals(3, board.nextMarked(1, 0));
+    assertEquals(64, board.nextMarked(1, 4));
+    assertEquals(190, board.nextMarked(1, 65));
+    assertEquals(-1, board.nextMarked(1, 191));
+    assertEquals(-1, board.nextMarked(0, 0));
+  }
+
+  @Test
+  @DisplayName("numbers run up in the first half of the rows and down in the rest")
+  public void numbers() {
+    QwixxBoard board = new QwixxBoard(5, 100);
+    assertEquals(2, board.numberAt(0, 0));
+    assertEquals(101, board.numberAt(2, 99));
+    assertEquals(2, board.numberAt(3, 99));
+    assertEquals(99, board.columnOf(4, 2));
+    assertEquals(10, board.columnOf(1, 12));
+    assertEquals(-1, board.columnOf(1, 1));
+    assertEquals(-1, board.columnOf(1, 102));
+  }
+}
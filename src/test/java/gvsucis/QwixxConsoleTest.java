@@ -0,0 +1,96 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class QwixxConsoleTest {
+
+  private ByteArrayOutputStream bytes;
+  private QwixxConsole console;
+
+  @BeforeEach
+  public void before() {
+    bytes = new ByteArrayOutputStream();
+    console = new QwixxConsole(new PrintStream(bytes, true));
+  }
+
+  private String[] output() {
+    return bytes.toString().split("\\R");
+  }
+
+  @Test
+  @DisplayName("#run executes each line until QUIT")
+  public void runScript() throws IOException {
+    console.run(new StringReader("NEW 4 11 2\n# a comment\n\nROLL\nPASSWHITE\nQUIT\nROLL\n"));
+    String[] lines = output();
+    assertEquals(4, lines.length);
+    assertEquals("OK", lines[0]);
+    assertTrue(lines[1].startsWith("OK "));
+    assertEquals("OK", lines[2]);
+    assertEquals("OK", lines[3]);
+  }
+
+  @Test
+  @DisplayName("SHOW draws the board as text")
+  public void show() {
+    console.execute("show");
+    String[] lines = output();
+    assertEquals("  2  3  4  5  6  7  8  9 10 11 12  |   0", lines[0]);
+    assertEquals(" 12 11 10  9  8  7  6  5  4  3  2  |   0", lines[3]);
+    assertEquals("dice: 0 0 | 0 0 0 0", lines[4]);
+    assertEquals("penalties: 0 of 4   total: 0", lines[5]);
+    assertEquals("Roll the dice.", lines[6]);
+  }
+
+  @Test
+  @DisplayName("bad commands are answered with ERR")
+  public void badCommands() {
+    assertTrue(console.execute("SELECT 0"));
+    assertTrue(console.execute("FLY"));
+    assertTrue(console.execute("NEW -1 11 2"));
+    assertFalse(console.execute("QUIT"));
+    String[] lines = output();
+    assertEquals("ERR bad arguments", lines[0]);
+    assertEquals("ERR unknown command FLY", lines[1]);
+    assertEquals("ERR bad arguments", lines[2]);
+  }
+
+  @Test
+  @DisplayName("Qwixx --headless plays without loading AWT or Swing")
+  public void headlessLauncherSkipsAwt() throws Exception {
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.add("-verbose:class");
+    command.add("-cp");
+    command.add(Paths.get(Qwixx.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+    command.addAll(Arrays.asList("gvsucis.Qwixx", "--headless", "ROLL", "SHOW"));
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    List<String> loaded = new ArrayList<>();
+    boolean played = false;
+    try (BufferedReader lines = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = lines.readLine()) != null) {
+        if (line.contains("java.awt.") || line.contains("javax.swing.")) {
+          loaded.add(line);
+        }
+        played |= line.startsWith("dice: ");
+      }
+    }
+    assertEquals(0, process.waitFor());
+    assertTrue(played);
+    assertEquals(new ArrayList<String>(), loaded);
+  }
+}
@@ -0,0 +1,99 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class QwixxMetricsTest {
+
+  @AfterEach
+  public void uninstall() {
+    QwixxMetrics.uninstall();
+  }
+
+  // Two turns: a white cross-out, a rejected selection, a colored pass; then a
+  // white pass and a colored pass that costs a penalty.
+  static void play() {
+    QwixxModel model = new QwixxModel();
+    model.rollDice(new int[] { 6, 6, 1, 1, 1, 1 });
+    model.numberSelected(0, 10);
+    model.numberSelected(1, 0);
+    model.passColor();
+    model.rollDice(new int[] { 1, 1, 1, 1, 1, 1 });
+    model.passWhite();
+    model.passColor();
+  }
+
+  @Test
+  @DisplayName("nothing is counted until a registry is installed")
+  public void notInstalled() {
+    assertNull(QwixxMetrics.installed());
+    play();
+    QwixxMetrics metrics = QwixxMetrics.install();
+    assertSame(metrics, QwixxMetrics.installed());
+    assertEquals(0, metrics.moves());
+  }
+
+  @Test
+  @DisplayName("the registry counts every operation")
+  public void counts() {
+    QwixxMetrics metrics = QwixxMetrics.install();
+    play();
+    assertEquals(2, metrics.rolls());
+    assertEquals(1, metrics.selections(QwixxModel.StatusCode.VALID));
+    assertEquals(1, metrics.selections(QwixxModel.StatusCode.DICE_DONT_MATCH));
+    assertEquals(0, metrics.selections(QwixxModel.StatusCode.EXCLUDED));
+    assertEquals(1, metrics.whitePasses());
+    assertEquals(2, metrics.colorPasses());
+    assertEquals(1, metrics.penalties());
+    assertEquals(7, metrics.moves());
+    assertEquals(0.5, metrics.invalidSelectionRate());
+
+    QwixxMetrics.uninstall();
+    play();
+    assertEquals(7, metrics.moves());
+  }
+
+  // Run the console in a fresh JVM and list the classes it loads.
+  static List<String> consoleClasses(String... jvmOptions) throws Exception {
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(Arrays.asList(jvmOptions));
+    command.add("-verbose:class");
+    command.add("-cp");
+    command.add(Paths.get(QwixxConsole.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+    command.add("gvsucis.QwixxConsole");
+    command.addAll(Arrays.asList("ROLL", "STATE", "SHOW"));
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    List<String> classes = new ArrayList<>();
+    try (BufferedReader lines = new BufferedReader(
+        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = lines.readLine()) != null) {
+        // "[Loaded name from ...]" on Java 8, "[...][class,load] name source: ..." later.
+        if (line.startsWith("[Loaded ") || line.contains("[class,load]")) {
+          classes.add(line);
+        }
+      }
+    }
+    assertEquals(0, process.waitFor());
+    return classes;
+  }
+
+  @Test
+  @DisplayName("playing in the console loads no Flight Recorder classes")
+  public void consoleStartsWithoutJfr() throws Exception {
+    List<String> classes = consoleClasses();
+    assertFalse(classes.isEmpty());
+    assertEquals(0, classes.stream().filter(line -> line.contains("jdk.jfr.")).count());
+    assertTrue(classes.size() < 600, classes.size() + " classes loaded");
+  }
+}
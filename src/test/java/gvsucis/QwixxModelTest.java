@@ -53,6 +53,42 @@ public class QwixxModelTest {
     assertEquals(4, m.maxPenalties());
   }
 
+  @Test
+  @DisplayName("#constructor honors custom board sizes")
+  public void testCustomConstructor() {
+    QwixxModel m = new QwixxModel(6, 20, 3);
+    assertEquals(6, m.numRows());
+    assertEquals(20, m.numColumns());
+    assertEquals(3, m.numWhiteDice());
+    assertEquals(9, m.diceValues().length);
+    assertEquals(6, m.numberValues().length);
+    assertEquals(20, m.numberValues()[0].length);
+    assertEquals(8, m.scoreValues().length);
+  }
+
+  @Test
+  @DisplayName("#numberSelected on a wide board never matches numbers the dice cannot sum to")
+  public void wideBoardNumbersBeyondDice() {
+    // Numbers 2 through 41: with the dice showing 1s, only 2 can match, and
+    // 34 (= 2 + 32) must not alias it.
+    QwixxModel m = new QwixxModel(12, 40, 2);
+    int[] ones = new int[m.numDice()];
+    java.util.Arrays.fill(ones, 1);
+    m.rollDice(ones);
+    for (int phase = 0; phase < 2; ++phase) {
+      for (int row = 0; row < m.numRows(); ++row) {
+        for (int col = 0; col < m.numColumns(); ++col) {
+          if (m.numberAt(row, col) != 2) {
+            assertEquals(QwixxModel.StatusCode.DICE_DONT_MATCH, m.numberSelected(row, col),
+                String.format("(%d, %d) shows %d", row, col, m.numberAt(row, col)));
+          }
+        }
+      }
+      m.passWhite();
+    }
+    assertEquals(QwixxModel.StatusCode.VALID, m.numberSelected(0, 0));
+  }
+
   @Test
   @DisplayName("#constructor score is initially zero")
   public void scoreInitiallyZero() {
@@ -90,6 +126,19 @@ public class QwixxModelTest {
     }
   }
 
+  @Test
+  @DisplayName("a page of number values matches the same rows of the whole grid")
+  public void numberValuesPage() {
+    model.rollDice(new int[] { 1, 2, 1, 1, 1, 1 });
+    model.numberSelected(2, 9);
+    String[][] all = imodel.numberValues();
+    String[][] page = imodel.numberValues(1, 2);
+    assertEquals(2, page.length);
+    assertArrayEquals(all[1], page[0]);
+    assertArrayEquals(all[2], page[1]);
+    assertEquals("X", page[1][9]);
+  }
+
   @Test
   @DisplayName("dice values array is the correct size")
   public void diceValuesArrayIsCorrectSize() {
@@ -194,4 +243,355 @@ public class QwixxModelTest {
     assertArrayEquals(expectedScore, imodel.scoreValues());
   }
 
-}
\ No newline at end of file
+
+  // ------------------------------------------------------
+  //
+  // Primitive accessors
+  //
+  // ------------------------------------------------------
+
+  @Test
+  @DisplayName("primitive accessors agree with the String views")
+  public void primitiveAccessorsAgreeWithStringViews() {
+    rollDiceHelper(model, 1, 2, 4, 5, 4, 5);
+    model.numberSelected(2, colInMatrix(2, 3));
+
+    int[] dice = new int[imodel.numDice()];
+    imodel.copyDiceInto(dice);
+    for (int i = 0; i < dice.length; ++i) {
+      assertEquals(imodel.diceValues()[i], Integer.toString(dice[i]));
+      assertEquals(dice[i], imodel.die(i));
+    }
+
+    String[][] boardView = imodel.numberValues();
+    for (int r = 0; r < boardView.length; ++r) {
+      for (int c = 0; c < boardView[r].length; ++c) {
+        String expected = imodel.isMarked(r, c) ? MARK : Integer.toString(imodel.numberAt(r, c));
+        assertEquals(expected, boardView[r][c]);
+      }
+    }
+
+    String[] scores = imodel.scoreValues();
+    for (int r = 0; r < imodel.numRows(); ++r) {
+      assertEquals(scores[r], Integer.toString(imodel.rowScore(r)));
+    }
+    assertEquals(scores[imodel.numRows()], Integer.toString(imodel.penaltyScore()));
+    assertEquals(scores[imodel.numRows() + 1], Integer.toString(imodel.totalScore()));
+  }
+
+  // ------------------------------------------------------
+  //
+  // Legal moves
+  //
+  // ------------------------------------------------------
+
+  @ParameterizedTest
+  @DisplayName("#legalMoves matches what numberSelected accepts")
+  @ValueSource(longs = { 1, 2, 3, 4, 5 })
+  public void legalMovesMatchNumberSelected(long seed) {
+    QwixxModel game = new QwixxModel(4, 11, 2, DiceSource.seeded(seed));
+    QwixxPolicy policy = QwixxPolicy.greedy(3);
+    while (!game.gameOver()) {
+      game.rollDice();
+      while (game.canSelect()) {
+        for (int row = 0; row < game.numRows(); ++row) {
+          long legal = game.legalMoves(row);
+          for (int col = 0; col < game.numColumns(); ++col) {
+            QwixxModel probe = replay(game);
+            boolean valid = probe.numberSelected(row, col) == QwixxModel.StatusCode.VALID;
+            assertEquals(valid, (legal & (1L << col)) != 0, String.format("(%d, %d)", row, col));
+          }
+        }
+        int choice = policy.choose(game);
+        if (choice == QwixxPolicy.PASS) {
+          if (game.canPassWhite()) {
+            game.passWhite();
+          } else {
+            game.passColor();
+          }
+        } else {
+          game.numberSelected(choice / game.numColumns(), choice % game.numColumns());
+        }
+      }
+    }
+  }
+
+  // Build a copy of the given game's board, dice and phase.
+  private static QwixxModel replay(QwixxModel game) {
+    QwixxModel copy = new QwixxModel();
+    int[] dice = new int[game.numDice()];
+    game.copyDiceInto(dice);
+    for (int row = 0; row < game.numRows(); ++row) {
+      for (int col = 0; col <= game.lastMarked(row); ++col) {
+        if (game.isMarked(row, col)) {
+          // Roll dice that make exactly this box available to the white dice.
+          int number = game.numberAt(row, col);
+          int a = Math.max(1, number - 6);
+          copy.rollDice(new int[] { a, number - a, 1, 1, 1, 1 });
+          copy.numberSelected(row, col);
+          copy.passColor();
+        }
+      }
+    }
+    copy.rollDice(dice);
+    if (game.canPassColor()) {
+      copy.passWhite();
+    }
+    return copy;
+  }
+
+  // ------------------------------------------------------
+  //
+  // Listeners
+  //
+  // ------------------------------------------------------
+
+  @Test
+  @DisplayName("listeners receive each change as it happens")
+  public void listenersReceiveChanges() {
+    StringBuilder events = new StringBuilder();
+    QwixxListener listener = new QwixxListener() {
+      public void diceRolled(ReadOnlyQwixxModel m) {
+        events.append("roll ");
+      }
+
+      public void boxCrossed(ReadOnlyQwixxModel m, int row, int col) {
+        events.append(String.format("box(%d,%d) ", row, col));
+      }
+
+      public void penaltyTaken(ReadOnlyQwixxModel m, int total) {
+        events.append("penalty" + total + " ");
+      }
+
+      public void phaseChanged(ReadOnlyQwixxModel m) {
+        events.append("phase ");
+      }
+
+      public void gameOver(ReadOnlyQwixxModel m) {
+        events.append("over ");
+      }
+    };
+    model.addListener(listener);
+
+    rollDiceHelper(model, 1, 2, 4, 5, 4, 5);
+    model.numberSelected(0, colInMatrix(0, 3));
+    model.passColor();
+    assertEquals("roll phase box(0,1) phase phase ", events.toString());
+
+    events.setLength(0);
+    model.numberSelected(0, 5);
+    assertEquals("", events.toString(), "Invalid moves are not reported");
+
+    for (int i = 0; i < model.maxPenalties(); ++i) {
+      rollDiceHelper(model, 1, 1, 1, 1, 1, 1);
+      model.passWhite();
+      model.passColor();
+    }
+    assertTrue(events.toString().endsWith("penalty4 phase over "), events.toString());
+
+    model.removeListener(listener);
+    events.setLength(0);
+    model.reset();
+    rollDiceHelper(model, 1, 1, 1, 1, 1, 1);
+    assertEquals("", events.toString());
+  }
+
+  // Everything a player can observe about a game.
+  private static String describe(ReadOnlyQwixxModel m) {
+    StringBuilder answer = new StringBuilder();
+    answer.append(java.util.Arrays.toString(m.diceValues()));
+    answer.append(java.util.Arrays.deepToString(m.numberValues()));
+    answer.append(java.util.Arrays.toString(m.scoreValues()));
+    for (int row = 0; row < m.numRows(); ++row) {
+      answer.append(' ').append(m.legalMoves(row));
+    }
+    answer.append(' ').append(m.canRoll()).append(m.canPassWhite()).append(m.canPassColor());
+    answer.append(m.markedThisTurn()).append(m.gameOver()).append(m.timesPassed());
+    return answer.toString();
+  }
+
+  @Test
+  @DisplayName("#zobristHash depends on the position, not the order of the moves")
+  public void zobristHash() {
+    QwixxModel a = new QwixxModel();
+    QwixxModel b = new QwixxModel();
+    assertEquals(a.zobristHash(), b.zobristHash());
+
+    // a crosses out red 3 then yellow 5; b the other way round.
+    a.rollDice(new int[] { 1, 2, 4, 4, 1, 1 });
+    b.rollDice(new int[] { 1, 2, 4, 4, 1, 1 });
+    assertEquals(QwixxModel.StatusCode.VALID, a.numberSelected(0, 1));
+    assertEquals(QwixxModel.StatusCode.VALID, a.numberSelected(1, 3));
+    assertEquals(QwixxModel.StatusCode.VALID, b.numberSelected(1, 1));
+    assertNotEquals(a.zobristHash(), b.zobristHash());
+
+    QwixxModel c = new QwixxModel();
+    c.rollDice(new int[] { 1, 4, 2, 1, 1, 1 });
+    assertEquals(QwixxModel.StatusCode.VALID, c.numberSelected(1, 3));
+    assertEquals(QwixxModel.StatusCode.VALID, c.numberSelected(0, 1));
+    assertEquals(a.zobristHash(), c.zobristHash());
+
+    long before = c.zobristHash();
+    c.rollDice(new int[] { 1, 1, 1, 1, 1, 1 });
+    c.passWhite();
+    c.passColor();
+    assertEquals(1, c.timesPassed());
+    assertNotEquals(before, c.zobristHash());
+  }
+
+  @Test
+  @DisplayName("#canonicalHash and #canonicalKey merge positions with the same future")
+  public void canonicalHash() {
+    // Red 2, 3, 5 and red 2, 4, 5: different boxes, the same last box and count.
+    QwixxModel a = new QwixxModel();
+    QwixxModel b = new QwixxModel();
+    for (int[] sums : new int[][] { { 2, 3, 5 }, { 2, 4, 5 } }) {
+      QwixxModel model = sums[1] == 3 ? a : b;
+      for (int sum : sums) {
+        model.rollDice(new int[] { 1, sum - 1, 1, 1, 1, 1 });
+        assertEquals(QwixxModel.StatusCode.VALID, model.numberSelected(0, sum - 2));
+        model.passColor();
+      }
+    }
+    assertNotEquals(a.zobristHash(), b.zobristHash());
+    assertEquals(a.canonicalHash(), b.canonicalHash());
+    assertEquals(a.canonicalKey(), b.canonicalKey());
+
+    b.rollDice(new int[] { 1, 5, 1, 1, 1, 1 });
+    assertNotEquals(a.canonicalHash(), b.canonicalHash());
+    assertNotEquals(a.canonicalKey(), b.canonicalKey());
+    assertEquals(QwixxModel.StatusCode.VALID, b.numberSelected(0, 4));
+    assertNotEquals(a.canonicalHash(), b.canonicalHash());
+
+    assertThrows(IllegalStateException.class, () -> new QwixxModel(5, 11, 2).canonicalKey());
+  }
+
+  @Test
+  @DisplayName("#undo and #redo restore the hashes")
+  public void undoRestoresHashes() {
+    QwixxModel m = new QwixxModel();
+    m.keepHistory(16);
+    long[] zobrist = new long[6];
+    long[] canonical = new long[6];
+    int moves = 0;
+    zobrist[moves] = m.zobristHash();
+    canonical[moves++] = m.canonicalHash();
+    m.rollDice(new int[] { 3, 3, 1, 1, 1, 1 });
+    zobrist[moves] = m.zobristHash();
+    canonical[moves++] = m.canonicalHash();
+    assertEquals(QwixxModel.StatusCode.VALID, m.numberSelected(0, 4));
+    zobrist[moves] = m.zobristHash();
+    canonical[moves++] = m.canonicalHash();
+    assertEquals(QwixxModel.StatusCode.VALID, m.numberSelected(1, 2));
+    zobrist[moves] = m.zobristHash();
+    canonical[moves++] = m.canonicalHash();
+
+    for (int i = moves - 1; i > 0; --i) {
+      assertTrue(m.undo());
+      assertEquals(zobrist[i - 1], m.zobristHash());
+      assertEquals(canonical[i - 1], m.canonicalHash());
+    }
+    while (m.redo()) {
+    }
+    assertEquals(zobrist[moves - 1], m.zobristHash());
+    assertEquals(canonical[moves - 1], m.canonicalHash());
+    m.reset();
+    assertEquals(zobrist[0], m.zobristHash());
+  }
+
+  @Test
+  @DisplayName("#undo restores every earlier state and #redo replays them")
+  public void undoAndRedoWholeGame() {
+    QwixxModel game = new QwixxModel(4, 11, 2, new SplitMixDiceSource(9));
+    game.keepHistory(1000);
+    java.util.List<String> states = new java.util.ArrayList<>();
+    states.add(describe(game));
+
+    // Every move ends with exactly one phase change.
+    game.addListener(new QwixxListener() {
+      public void phaseChanged(ReadOnlyQwixxModel m) {
+        states.add(describe(m));
+      }
+    });
+    QwixxSimulator.playGame(game, QwixxPolicy.greedy(1));
+    assertFalse(game.canRedo());
+
+    java.util.List<String> recorded = new java.util.ArrayList<>(states);
+    for (int i = recorded.size() - 2; i >= 0; --i) {
+      assertTrue(game.undo());
+      assertEquals(recorded.get(i), describe(game), "undo to state " + i);
+    }
+    assertFalse(game.undo());
+
+    for (int i = 1; i < recorded.size(); ++i) {
+      assertTrue(game.redo());
+      assertEquals(recorded.get(i), describe(game), "redo to state " + i);
+    }
+    assertFalse(game.redo());
+    assertTrue(game.gameOver());
+  }
+
+  @Test
+  @DisplayName("a new move after #undo discards the moves that could be redone")
+  public void newMoveClearsRedo() {
+    model.keepHistory(16);
+    rollDiceHelper(model, 1, 2, 4, 5, 4, 5);
+    assertEquals(QwixxModel.StatusCode.VALID, model.numberSelected(0, colInMatrix(0, 3)));
+    assertTrue(model.undo());
+    assertTrue(model.canRedo());
+    assertFalse(model.isMarked(0, colInMatrix(0, 3)));
+    assertEquals(0, model.totalScore());
+
+    model.passWhite();
+    assertFalse(model.canRedo());
+    assertFalse(model.redo());
+    assertTrue(model.undo());
+    assertTrue(model.undo());
+    assertTrue(model.canRoll());
+    assertArrayEquals(new String[] { "0", "0", "0", "0", "0", "0" }, model.diceValues());
+  }
+
+  @Test
+  @DisplayName("#undo only reaches back as far as the history kept")
+  public void historyIsBounded() {
+    assertFalse(model.undo(), "no history is kept by default");
+    model.keepHistory(4);
+    for (int i = 0; i < 3; ++i) {
+      rollDiceHelper(model, 1, 1, 1, 1, 1, 1);
+      model.passWhite();
+      model.passColor();
+    }
+    for (int i = 0; i < 4; ++i) {
+      assertTrue(model.undo());
+    }
+    assertFalse(model.undo());
+    assertEquals(1, model.timesPassed());
+    assertTrue(model.canPassColor());
+
+    model.reset();
+    assertFalse(model.canUndo());
+  }
+
+  @Test
+  @DisplayName("#undo and #redo notify listeners and update the snapshot")
+  public void undoNotifies() {
+    model.keepHistory(8);
+    StringBuilder events = new StringBuilder();
+    model.addListener(new QwixxListener() {
+      public void moveUndone(ReadOnlyQwixxModel m) {
+        events.append("undo ");
+      }
+
+      public void moveRedone(ReadOnlyQwixxModel m) {
+        events.append("redo ");
+      }
+    });
+    rollDiceHelper(model, 1, 2, 4, 5, 4, 5);
+    model.snapshot();
+    model.undo();
+    assertTrue(model.snapshot().canRoll());
+    model.redo();
+    assertTrue(model.snapshot().canPassWhite());
+    assertEquals("undo redo ", events.toString());
+  }
+}
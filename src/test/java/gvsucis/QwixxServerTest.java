@@ -0,0 +1,102 @@
+package gvsucis;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.Locale;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QwixxServerTest {
+
+  @Test
+  @DisplayName("a session follows the rules of the game")
+  public void sessionFollowsRules() {
+    QwixxServer.Session session = new QwixxServer.Session();
+    assertTrue(session.execute("STATE").startsWith("OK ROLL 0,0,0,0,0,0 0,0,0,0 0,0,0,0 0 0"));
+    assertTrue(session.execute("PASSWHITE").startsWith("ERR"));
+    assertEquals("OK MUST_ROLL", session.execute("SELECT 0 0"));
+
+    assertTrue(session.execute("ROLL").matches("OK( [1-6]){6}"));
+    assertTrue(session.execute("ROLL").startsWith("ERR"));
+    assertTrue(session.execute("STATE").startsWith("OK WHITE"));
+    assertEquals("OK", session.execute("PASSWHITE"));
+    assertEquals("OK", session.execute("PASSCOLOR"));
+    assertTrue(session.execute("STATE").endsWith(" 1 -5"));
+
+    assertEquals("ERR no such box", session.execute("SELECT 9 0"));
+    assertEquals("ERR bad arguments", session.execute("SELECT x"));
+    assertTrue(session.execute("FOO").startsWith("ERR"));
+
+    assertEquals("OK", session.execute("NEW 2 5 2"));
+    assertTrue(session.execute("STATE").startsWith("OK ROLL 0,0,0,0 0,0 0,0 0 0"));
+  }
+
+  @Test
+  @DisplayName("NEW rejects board sizes out of range without changing the game")
+  public void newRejectsBadSizes() {
+    QwixxServer.Session session = new QwixxServer.Session();
+    assertEquals("ERR bad arguments", session.execute("NEW -1 11 2"));
+    assertEquals("ERR bad arguments", session.execute("NEW 4 -11 2"));
+    assertEquals("ERR bad arguments", session.execute("NEW 4 11 -2"));
+    assertEquals("ERR bad arguments", session.execute("NEW 0 11 2"));
+    assertEquals("ERR bad arguments", session.execute("NEW 4 0 2"));
+    assertEquals("ERR bad arguments", session.execute("NEW 4 11 1"));
+    assertEquals("ERR bad arguments", session.execute("NEW 2000000000 11 2"));
+    assertEquals("ERR bad arguments", session.execute("NEW 4 65 2"));
+    assertEquals("ERR bad arguments", session.execute("NEW 4 11 2000000000"));
+    assertEquals("ERR bad arguments", session.execute("NEW 4 11"));
+    assertEquals(4, session.model().numRows());
+    assertEquals(11, session.model().numColumns());
+
+    assertEquals("OK", session.execute("NEW 16 64 6"));
+    assertEquals(16, session.model().numRows());
+    assertEquals(64, session.model().numColumns());
+    assertEquals(6, session.model().numWhiteDice());
+  }
+
+  @Test
+  @DisplayName("commands are case-insensitive in any default locale")
+  public void commandsIgnoreLocale() {
+    Locale saved = Locale.getDefault();
+    try {
+      Locale.setDefault(new Locale("tr", "TR"));
+      QwixxServer.Session session = new QwixxServer.Session();
+      assertTrue(session.execute("state").startsWith("OK ROLL"));
+      assertEquals("OK", session.execute("quit"));
+      assertTrue(session.closed());
+    } finally {
+      Locale.setDefault(saved);
+    }
+  }
+
+  @Test
+  @DisplayName("the server plays a game over TCP")
+  public void serverPlaysOverTcp() throws Exception {
+    try (QwixxServer server = new QwixxServer(0);
+        Socket socket = new Socket("localhost", server.port());
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+
+      // Pipelined commands get their replies in order.
+      out.print("ROLL\nSTATE\nPASSWHITE\nPASSCOLOR\nQUIT\n");
+      out.flush();
+      assertTrue(in.readLine().startsWith("OK "));
+      assertTrue(in.readLine().startsWith("OK WHITE"));
+      assertEquals("OK", in.readLine());
+      assertEquals("OK", in.readLine());
+      assertEquals("OK", in.readLine());
+      assertNull(in.readLine());
+      assertEquals(1, server.sessionsStarted());
+    }
+  }
+
+  @Test
+  @DisplayName("the load generator finishes games")
+  public void loadGeneratorFinishesGames() throws Exception {
+    try (QwixxServer server = new QwixxServer(0)) {
+      QwixxLoadGenerator load = new QwixxLoadGenerator("localhost", server.port());
+      load.run(4, 300);
+      assertTrue(load.games() > 0);
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+public class QwixxSessionsTest {
+
+  private Path directory;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("qwixx-sessions-test");
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  // Everything a reader can see of a game.
+  private static String describe(ReadOnlyQwixxModel game) {
+    return Arrays.deepToString(game.numberValues()) + Arrays.toString(game.scoreValues())
+        + Arrays.toString(game.diceValues()) + game.statusMessage() + game.canPassWhite() + game.canPassColor()
+        + game.markedThisTurn() + game.timesPassed();
+  }
+
+  @Test
+  @DisplayName("writeTo and readFrom round-trip a game in 15 bytes")
+  public void roundTrip() throws Exception {
+    QwixxModel model = new QwixxModel();
+    model.rollDice(new int[] { 3, 4, 2, 5, 6, 1 });
+    assertEquals(QwixxModel.StatusCode.VALID, model.numberSelected(0, 5));
+    model.passColor();
+    model.rollDice(new int[] { 1, 1, 6, 6, 6, 6 });
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    model.writeTo(new DataOutputStream(bytes));
+    assertEquals(15, bytes.size());
+    QwixxModel copy = QwixxModel.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+        DiceSource.threadLocal());
+
+    assertEquals(describe(model), describe(copy));
+    assertEquals(model.totalScore(), copy.totalScore());
+    assertEquals(model.zobristHash(), copy.zobristHash());
+    assertEquals(model.canonicalHash(), copy.canonicalHash());
+    for (int row = 0; row < 4; ++row) {
+      assertEquals(model.legalMoves(row), copy.legalMoves(row));
+    }
+  }
+
+  @Test
+  @DisplayName("games too large to write are rejected up front")
+  public void rejectsUnwritableGames() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    assertThrows(IllegalArgumentException.class, () -> new QwixxModel(300, 11, 2).writeTo(new DataOutputStream(bytes)));
+    assertEquals(0, bytes.size());
+    try (QwixxSessions sessions = new QwixxSessions(directory, 10, 60_000)) {
+      assertThrows(IllegalArgumentException.class, () -> sessions.create(300, 11, 2));
+      assertThrows(IllegalArgumentException.class, () -> sessions.create(4, 11, 256));
+      assertThrows(IllegalArgumentException.class, () -> sessions.create(0, 11, 2));
+      assertThrows(IllegalArgumentException.class, () -> sessions.create(4, 65, 2));
+      assertEquals(0, sessions.size());
+      assertEquals(255, sessions.create(255, 11, 2).snapshot().numRows());
+    }
+  }
+
+  @Test
+  @DisplayName("readFrom rejects corrupt bytes with an IOException")
+  public void rejectsCorruptBytes() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new QwixxModel().writeTo(new DataOutputStream(bytes));
+    byte[] good = bytes.toByteArray();
+    QwixxModel.readFrom(new DataInputStream(new ByteArrayInputStream(good)), DiceSource.threadLocal());
+
+    // { offset, value }: the shape, the turn, the dice, then the marks.
+    int[][] corruptions = { { 0, 0 }, { 1, 0 }, { 1, 65 }, { 2, 1 }, { 3, 3 }, { 3, 5 << 3 }, { 4, 0x70 },
+        { 6, 0xf1 }, { 8, 0x08 } };
+    for (int[] corruption : corruptions) {
+      byte[] bad = good.clone();
+      bad[corruption[0]] = (byte) corruption[1];
+      assertThrows(IOException.class,
+          () -> QwixxModel.readFrom(new DataInputStream(new ByteArrayInputStream(bad)), DiceSource.threadLocal()),
+          Arrays.toString(corruption));
+    }
+    assertThrows(IOException.class, () -> QwixxModel
+        .readFrom(new DataInputStream(new ByteArrayInputStream(good, 0, 10)), DiceSource.threadLocal()));
+
+    try (QwixxSessions sessions = new QwixxSessions(directory, 10, 60_000)) {
+      QwixxSessions.Game game = sessions.create();
+      sessions.hibernateAll();
+      // The first record: its id, then the shape and a turn in no phase.
+      try (RandomAccessFile file = new RandomAccessFile(directory.resolve("games-32.qwx").toFile(), "rw")) {
+        file.seek(Long.BYTES);
+        file.write(new byte[] { 4, 11, 2, 3 });
+      }
+      assertThrows(UncheckedIOException.class, () -> game.snapshot());
+      assertTrue(sessions.remove(game.id()));
+    }
+  }
+
+  @Test
+  @DisplayName("games over the limit are hibernated and fault back in unchanged")
+  public void lruEviction() throws Exception {
+    try (QwixxSessions sessions = new QwixxSessions(directory, 2, 60_000)) {
+      QwixxSessions.Game[] games = new QwixxSessions.Game[5];
+      for (int g = 0; g < games.length; ++g) {
+        games[g] = sessions.create();
+        games[g].rollDice(new int[] { 1 + g, 2, 3, 4, 5, 6 });
+        assertTrue(sessions.resident() <= 2);
+      }
+      String[] before = new String[games.length];
+      for (int g = 0; g < games.length; ++g) {
+        before[g] = describe(games[g].snapshot());
+      }
+
+      assertEquals(2, sessions.resident());
+      assertFalse(games[0].isResident());
+      assertFalse(games[2].isResident());
+      assertTrue(games[3].isResident());
+      assertTrue(games[4].isResident());
+
+      // Using a game makes it the most recently used.
+      games[3].snapshot();
+      games[0].snapshot();
+      assertTrue(games[0].isResident());
+      assertTrue(games[3].isResident());
+      assertFalse(games[4].isResident());
+
+      long faults = sessions.faults();
+      for (int g = 0; g < games.length; ++g) {
+        assertEquals(before[g], describe(games[g].snapshot()), "game " + g);
+      }
+      assertTrue(sessions.faults() >= faults + 3);
+
+      assertEquals(QwixxModel.StatusCode.VALID, games[0].numberSelected(0, 1));
+      sessions.hibernateAll();
+      assertEquals(0, sessions.resident());
+      assertTrue(games[0].snapshot().isMarked(0, 1));
+    }
+  }
+
+  @Test
+  @DisplayName("the limit holds as games are created, in records of one file")
+  public void residencyLimit() throws Exception {
+    try (QwixxSessions sessions = new QwixxSessions(directory, 1_000, 60_000)) {
+      for (int g = 0; g < 10_000; ++g) {
+        sessions.create().rollDice(new int[] { 1, 2, 3, 4, 5, 6 });
+        assertTrue(sessions.resident() <= 1_000, "after game " + g);
+      }
+      assertEquals(10_000, sessions.size());
+      assertEquals(1_000, sessions.resident());
+      assertEquals(9_000, sessions.hibernations());
+      assertEquals(0, sessions.faults());
+
+      try (Stream<Path> files = Files.list(directory)) {
+        assertEquals(1, files.count());
+      }
+      assertEquals(9_000 * 32, Files.size(directory.resolve("games-32.qwx")));
+    }
+  }
+
+  @Test
+  @DisplayName("the background sweep hibernates idle games")
+  public void idleEviction() throws Exception {
+    try (QwixxSessions sessions = new QwixxSessions(directory, 100, 20)) {
+      QwixxSessions.Game game = sessions.create();
+      game.rollDice(new int[] { 6, 6, 1, 2, 3, 4 });
+      long deadline = System.nanoTime() + 10_000_000_000L;
+      while (game.isResident() && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+      assertFalse(game.isResident());
+      assertEquals(1, sessions.hibernations());
+      assertEquals(QwixxModel.StatusCode.VALID, game.numberSelected(3, 0));
+      assertEquals(1, sessions.faults());
+    }
+  }
+
+  @Test
+  @DisplayName("hibernated games outlive the sessions object and can be removed")
+  public void reopen() throws Exception {
+    long id;
+    String before;
+    try (QwixxSessions sessions = new QwixxSessions(directory, 10, 60_000)) {
+      QwixxSessions.Game game = sessions.create();
+      game.rollDice(new int[] { 2, 2, 1, 1, 1, 1 });
+      game.numberSelected(0, 2);
+      id = game.id();
+      before = describe(game.snapshot());
+    }
+
+    try (QwixxSessions sessions = new QwixxSessions(directory, 10, 60_000)) {
+      assertEquals(1, sessions.size());
+      assertEquals(0, sessions.resident());
+      assertEquals(before, describe(sessions.game(id).snapshot()));
+      assertEquals(1, sessions.faults());
+      assertTrue(sessions.create().id() > id);
+      sessions.hibernateAll();
+      assertTrue(sessions.remove(id));
+      assertNull(sessions.game(id));
+      assertThrows(IllegalArgumentException.class, () -> new QwixxSessions(directory, -1, 1));
+    }
+
+    // The removed game's record is free, and is reused.
+    try (QwixxSessions sessions = new QwixxSessions(directory, 10, 60_000)) {
+      assertEquals(1, sessions.size());
+      assertNull(sessions.game(id));
+      sessions.create(6, 20, 3);
+      sessions.create();
+      sessions.hibernateAll();
+      assertEquals(2 * 32, Files.size(directory.resolve("games-32.qwx")));
+      assertEquals(64, Files.size(directory.resolve("games-64.qwx")));
+    }
+    try (QwixxSessions sessions = new QwixxSessions(directory, 10, 60_000)) {
+      assertEquals(3, sessions.size());
+      assertEquals(0, sessions.resident());
+    }
+  }
+}
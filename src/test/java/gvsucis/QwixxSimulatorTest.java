@@ -0,0 +1,59 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QwixxSimulatorTest {
+
+  @Test
+  @DisplayName("#playGame plays until the game is over")
+  public void playGameEndsGame() {
+    QwixxModel model = new QwixxModel();
+    int turns = QwixxSimulator.playGame(model, QwixxPolicy.greedy(2));
+    assertTrue(model.gameOver());
+    assertTrue(turns >= model.maxPenalties());
+  }
+
+  @Test
+  @DisplayName("#playGame with a policy that always passes takes only penalties")
+  public void alwaysPass() {
+    QwixxModel model = new QwixxModel();
+    int turns = QwixxSimulator.playGame(model, m -> QwixxPolicy.PASS);
+    assertEquals(model.maxPenalties(), turns);
+    assertEquals(-5 * model.maxPenalties(), model.totalScore());
+  }
+
+  @Test
+  @DisplayName("#playGame rejects illegal choices")
+  public void illegalChoice() {
+    QwixxModel model = new QwixxModel();
+    model.rollDice(new int[] { 1, 1, 1, 1, 1, 1 });
+    assertThrows(IllegalStateException.class, () -> QwixxSimulator.playGame(model, m -> 10));
+  }
+
+  @Test
+  @DisplayName("#run counts every game exactly once")
+  public void runCountsEveryGame() {
+    QwixxSimulator.Result result = new QwixxSimulator(() -> QwixxPolicy.greedy(1)).run(10_000);
+    assertEquals(10_000, result.games());
+
+    long total = 0;
+    for (int score = -20; score <= 4 * 66; ++score) {
+      total += result.count(score);
+    }
+    assertEquals(10_000, total);
+    assertTrue(result.quantile(0) <= result.quantile(0.5));
+    assertTrue(result.quantile(0.5) <= result.quantile(1));
+  }
+
+  @Test
+  @DisplayName("#run with a seed gives the same results on any number of threads")
+  public void seededRunIsDeterministic() {
+    QwixxSimulator simulator = new QwixxSimulator(() -> QwixxPolicy.greedy(1));
+    QwixxSimulator.Result one = simulator.run(20_000, 42, new java.util.concurrent.ForkJoinPool(1));
+    QwixxSimulator.Result four = simulator.run(20_000, 42, new java.util.concurrent.ForkJoinPool(4));
+    for (int score = -20; score <= 4 * 66; ++score) {
+      assertEquals(one.count(score), four.count(score), "score " + score);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class QwixxSnapshotTest {
+
+  private static void assertSameState(ReadOnlyQwixxModel expected, ReadOnlyQwixxModel actual) {
+    assertArrayEquals(expected.diceValues(), actual.diceValues());
+    assertArrayEquals(expected.scoreValues(), actual.scoreValues());
+    for (int row = 0; row < expected.numRows(); ++row) {
+      assertArrayEquals(expected.numberValues()[row], actual.numberValues()[row]);
+      assertEquals(expected.legalMoves(row), actual.legalMoves(row), "row " + row);
+      assertEquals(expected.lastMarked(row), actual.lastMarked(row));
+    }
+    assertEquals(expected.canRoll(), actual.canRoll());
+    assertEquals(expected.canPassWhite(), actual.canPassWhite());
+    assertEquals(expected.canPassColor(), actual.canPassColor());
+    assertEquals(expected.markedThisTurn(), actual.markedThisTurn());
+    assertEquals(expected.gameOver(), actual.gameOver());
+    assertEquals(expected.statusMessage(), actual.statusMessage());
+  }
+
+  @Test
+  @DisplayName("the latest snapshot matches the game after every change")
+  public void snapshotTracksGame() {
+    QwixxModel model = new QwixxModel(4, 11, 2, new SplitMixDiceSource(3));
+    assertSameState(model, model.snapshot());
+    model.addListener(new QwixxListener() {
+      @Override
+      public void phaseChanged(ReadOnlyQwixxModel m) {
+        assertSameState(model, model.snapshot());
+      }
+    });
+    for (int g = 0; g < 20; ++g) {
+      QwixxSimulator.playGame(model, QwixxPolicy.greedy(g % 3));
+      assertSameState(model, model.snapshot());
+      model.reset();
+      assertSameState(model, model.snapshot());
+    }
+  }
+
+  @Test
+  @DisplayName("a snapshot does not change when the game does")
+  public void snapshotIsImmutable() {
+    QwixxModel model = new QwixxModel();
+    model.rollDice(new int[] { 1, 2, 4, 5, 4, 5 });
+    QwixxSnapshot before = model.snapshot();
+    String[] dice = before.diceValues();
+    String[][] numbers = before.numberValues();
+
+    model.numberSelected(0, 1);
+    model.passColor();
+    model.rollDice(new int[] { 6, 6, 6, 6, 6, 6 });
+
+    assertArrayEquals(dice, before.diceValues());
+    assertArrayEquals(numbers[0], before.numberValues()[0]);
+    assertEquals(-1, before.lastMarked(0));
+    assertTrue(before.canPassWhite());
+    assertNotSame(before, model.snapshot());
+    assertEquals(1, model.snapshot().lastMarked(0));
+  }
+
+  @Test
+  @DisplayName("readers on other threads always see a consistent snapshot")
+  public void concurrentReaders() throws InterruptedException {
+    QwixxModel model = new QwixxModel(4, 11, 2, new SplitMixDiceSource(5));
+    model.snapshot();
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<String> failure = new AtomicReference<>();
+
+    Thread reader = new Thread(() -> {
+      while (!done.get() && failure.get() == null) {
+        QwixxSnapshot s = model.snapshot();
+        int board = 0;
+        for (int row = 0; row < s.numRows(); ++row) {
+          board += s.rowScore(row);
+        }
+        if (board - s.penaltyScore() != s.totalScore()) {
+          failure.set("inconsistent score " + s.totalScore());
+        }
+      }
+    });
+    reader.start();
+    for (int g = 0; g < 2000; ++g) {
+      QwixxSimulator.playGame(model, QwixxPolicy.greedy(1));
+      model.reset();
+    }
+    done.set(true);
+    reader.join();
+    assertNull(failure.get());
+  }
+}
@@ -0,0 +1,76 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class QwixxStatsTest {
+
+  @Test
+  @DisplayName("statistics from a multi-threaded run agree with the run's results")
+  public void agreesWithSimulator() {
+    QwixxStats stats = new QwixxStats(4, 11);
+    QwixxSimulator.Result result = new QwixxSimulator(() -> QwixxPolicy.greedy(1)).run(20_000, 3,
+        new ForkJoinPool(4), stats);
+    QwixxStats.Snapshot snapshot = stats.snapshot();
+
+    assertEquals(20_000, snapshot.games());
+    for (int score = -20; score <= 4 * 66; ++score) {
+      assertEquals(result.count(score), snapshot.scoreCount(score), "score " + score);
+    }
+    assertEquals(result.mean(), snapshot.meanScore(), 1e-9);
+    assertEquals(result.quantile(0.5), snapshot.scoreQuantile(0.5));
+
+    long games = 0;
+    for (int p = 0; p <= 4; ++p) {
+      games += snapshot.penaltyCount(p);
+    }
+    assertEquals(20_000, games);
+    assertTrue(snapshot.meanTurns() >= 4);
+    assertTrue(snapshot.turnQuantile(0.1) <= snapshot.turnQuantile(0.9));
+  }
+
+  @Test
+  @DisplayName("a single game is recorded exactly")
+  public void singleGame() {
+    QwixxModel model = new QwixxModel();
+    model.rollDice(new int[] { 6, 6, 1, 1, 1, 1 });
+    model.numberSelected(0, 10);
+    model.passColor();
+    for (int i = 0; i < 4; ++i) {
+      model.rollDice(new int[] { 1, 1, 1, 1, 1, 1 });
+      model.passWhite();
+      model.passColor();
+    }
+
+    QwixxStats stats = new QwixxStats(4, 11);
+    stats.record(model, 5);
+    QwixxStats.Snapshot snapshot = stats.snapshot();
+    assertEquals(1, snapshot.games());
+    assertEquals(1, snapshot.scoreCount(1 - 20));
+    assertEquals(1, snapshot.penaltyCount(4));
+    assertEquals(5.0, snapshot.meanTurns());
+    assertEquals(1.0, snapshot.completionRate(0));
+    assertEquals(0.0, snapshot.completionRate(1));
+    assertEquals(1.0, snapshot.crossRate(0, 10));
+    assertEquals(0.0, snapshot.crossRate(0, 9));
+  }
+
+  @Test
+  @DisplayName("snapshots can be taken while workers are recording")
+  public void snapshotMidRun() throws InterruptedException {
+    QwixxStats stats = new QwixxStats(4, 11);
+    Thread worker = new Thread(() -> new QwixxSimulator(() -> QwixxPolicy.greedy(1)).run(50_000, 8,
+        new ForkJoinPool(2), stats));
+    worker.start();
+    long last = 0;
+    while (worker.isAlive()) {
+      long games = stats.snapshot().games();
+      assertTrue(games >= last);
+      last = games;
+    }
+    worker.join();
+    assertEquals(50_000, stats.snapshot().games());
+  }
+}
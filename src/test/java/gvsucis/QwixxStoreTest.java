@@ -0,0 +1,144 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class QwixxStoreTest {
+
+  @Test
+  @DisplayName("games played side by side in a store match games played in QwixxModel")
+  public void matchesModel() {
+    int games = 200;
+    QwixxStore store = QwixxStore.allocate(games);
+    QwixxStore.View view = store.view();
+    QwixxModel[] models = new QwixxModel[games];
+    SplitMixDiceSource[] sources = new SplitMixDiceSource[games];
+    int[] slots = new int[games];
+    for (int g = 0; g < games; ++g) {
+      models[g] = new QwixxModel();
+      sources[g] = new SplitMixDiceSource(g);
+      slots[g] = store.allocate();
+    }
+    QwixxPolicy policy = QwixxPolicy.greedy(1);
+
+    // One turn of every game at a time, so the slots interleave.
+    int[] dice = new int[6];
+    boolean playing = true;
+    while (playing) {
+      playing = false;
+      for (int g = 0; g < games; ++g) {
+        if (models[g].gameOver()) {
+          assertTrue(view.at(slots[g]).gameOver());
+          continue;
+        }
+        playing = true;
+        sources[g].roll(dice);
+        models[g].rollDice(dice);
+        store.rollDice(slots[g], dice);
+        QwixxSimulator.playTurn(models[g], policy);
+        store.playTurn(view.at(slots[g]), policy);
+        assertEquals(models[g].totalScore(), view.totalScore(), "game " + g);
+        assertEquals(models[g].timesPassed(), view.timesPassed(), "game " + g);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("a view reads exactly what QwixxModel would show")
+  public void viewMatchesModel() {
+    QwixxStore store = QwixxStore.allocate(2);
+    store.allocate();
+    int slot = store.allocate();
+    QwixxModel model = new QwixxModel();
+    QwixxStore.View view = store.view().at(slot);
+
+    int[] dice = { 3, 4, 2, 5, 6, 1 };
+    model.rollDice(dice);
+    store.rollDice(slot, dice);
+    assertEquals(model.numberSelected(0, 5), store.numberSelected(slot, 0, 5));
+    assertEquals(model.numberSelected(1, 0), store.numberSelected(slot, 1, 0));
+    for (int row = 0; row < 4; ++row) {
+      assertEquals(model.legalMoves(row), view.legalMoves(row));
+    }
+    assertEquals(model.numberSelected(3, 3), store.numberSelected(slot, 3, 3));
+
+    assertArrayEquals(model.numberValues(), view.numberValues());
+    assertArrayEquals(model.scoreValues(), view.scoreValues());
+    assertArrayEquals(model.diceValues(), view.diceValues());
+    assertEquals(model.statusMessage(), view.statusMessage());
+    assertEquals(model.markedThisTurn(), view.markedThisTurn());
+    assertEquals(model.canRoll(), view.canRoll());
+    assertEquals(model.lastMarked(3), view.lastMarked(3));
+
+    // The other slot is untouched.
+    assertEquals(0, view.at(0).totalScore());
+    assertTrue(view.canRoll());
+  }
+
+  @Test
+  @DisplayName("released slots are reused, and a full store refuses more games")
+  public void allocation() {
+    QwixxStore store = QwixxStore.allocate(3);
+    int a = store.allocate();
+    int b = store.allocate();
+    int c = store.allocate();
+    assertThrows(IllegalStateException.class, store::allocate);
+    store.rollDice(b, new int[] { 1, 1, 1, 1, 1, 1 });
+    store.release(b);
+    assertEquals(2, store.size());
+    assertEquals(b, store.allocate());
+    assertTrue(store.view().at(b).canRoll());
+    assertEquals(3, store.size());
+    assertNotEquals(a, c);
+
+    store.release(a);
+    assertThrows(IllegalArgumentException.class, () -> store.release(a));
+    assertThrows(IllegalArgumentException.class, () -> store.release(3));
+    assertEquals(2, store.size());
+    assertEquals(a, store.allocate());
+    assertThrows(IllegalStateException.class, store::allocate);
+  }
+
+  @Test
+  @DisplayName("boxes off the board are refused rather than read from the next row")
+  public void boxesOffTheBoard() {
+    QwixxStore store = QwixxStore.allocate(1);
+    int slot = store.allocate();
+    QwixxStore.View view = store.view().at(slot);
+    store.rollDice(slot, new int[] { 1, 1, 1, 1, 1, 1 });
+    assertEquals(QwixxModel.StatusCode.VALID, store.numberSelected(slot, 1, 0));
+
+    assertThrows(IndexOutOfBoundsException.class, () -> view.isMarked(0, 11));
+    assertThrows(IndexOutOfBoundsException.class, () -> view.isMarked(4, 0));
+    assertThrows(IndexOutOfBoundsException.class, () -> view.isMarked(0, -1));
+    assertThrows(IndexOutOfBoundsException.class, () -> store.numberSelected(slot, 0, 64));
+    assertThrows(IndexOutOfBoundsException.class, () -> store.numberSelected(slot, 0, 11));
+    assertTrue(view.isMarked(1, 0));
+    assertFalse(view.isMarked(0, 10));
+  }
+
+  @Test
+  @DisplayName("games in a mapped store survive reopening the file")
+  public void mapped() throws Exception {
+    Path file = Files.createTempFile("qwixx", ".slots");
+    try {
+      QwixxStore store = QwixxStore.map(file, 10);
+      int slot = store.allocate();
+      store.rollDice(slot, new int[] { 6, 6, 1, 1, 1, 1 });
+      assertEquals(QwixxModel.StatusCode.VALID, store.numberSelected(slot, 0, 10));
+
+      QwixxStore reopened = QwixxStore.map(file, 10);
+      reopened.allocateAll();
+      QwixxStore.View view = reopened.view().at(slot);
+      assertTrue(view.isMarked(0, 10));
+      assertTrue(view.canPassColor());
+      assertEquals(1, view.totalScore());
+      assertEquals(10 * QwixxStore.SLOT_BYTES, Files.size(file));
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QwixxTableTest {
+
+  private static final QwixxModel.StatusCode VALID = QwixxModel.StatusCode.VALID;
+
+  // Roll the given white dice (colored dice all 1).
+  private static void roll(QwixxTable table, int white1, int white2) {
+    assertTrue(table.rollDice(new int[] { white1, white2, 1, 1, 1, 1 }));
+  }
+
+  // Both players cross out the given box on the white dice; the active player
+  // then passes on the colored dice.
+  private static void bothCross(QwixxTable table, int white1, int white2, int row, int col) {
+    roll(table, white1, white2);
+    assertEquals(VALID, table.player(0).numberSelected(row, col));
+    assertEquals(VALID, table.player(1).numberSelected(row, col));
+    assertTrue(table.player(table.activePlayer()).passColor());
+  }
+
+  @Test
+  @DisplayName("every player may use the white dice, but only the active player the colored dice")
+  public void whiteAndColorDice() {
+    QwixxTable table = new QwixxTable(3);
+    QwixxTable.Player active = table.player(0);
+    QwixxTable.Player other = table.player(1);
+    assertTrue(active.canRoll());
+    assertFalse(other.canRoll());
+
+    roll(table, 3, 4);
+    assertEquals(VALID, other.numberSelected(0, 5));
+    assertFalse(other.canSelect());
+    assertEquals(QwixxModel.StatusCode.MUST_ROLL, other.numberSelected(1, 5));
+    assertTrue(table.player(2).passWhite());
+    assertTrue(active.passWhite());
+
+    // 3 + 1 on the colored dice, for the active player alone.
+    assertFalse(other.canPassColor());
+    assertEquals(QwixxModel.StatusCode.MUST_ROLL, other.numberSelected(0, 2));
+    assertEquals(0L, other.legalMoves(0));
+    assertTrue(active.canPassColor());
+    assertEquals(VALID, active.numberSelected(0, 2));
+    assertEquals(1, table.activePlayer());
+    assertTrue(other.canRoll());
+    assertFalse(active.canRoll());
+  }
+
+  @Test
+  @DisplayName("only the active player takes a penalty for crossing out nothing")
+  public void penalties() {
+    QwixxTable table = new QwixxTable(2);
+    roll(table, 1, 1);
+    assertTrue(table.player(0).passWhite());
+    assertFalse(table.player(0).passColor());
+    assertTrue(table.player(1).passWhite());
+    assertFalse(table.player(1).passColor());
+    assertTrue(table.player(0).passColor());
+    assertEquals(1, table.player(0).timesPassed());
+    assertEquals(0, table.player(1).timesPassed());
+
+    // A box crossed out on the white dice spares the active player.
+    roll(table, 1, 1);
+    assertTrue(table.player(0).passWhite());
+    assertEquals(VALID, table.player(1).numberSelected(0, 0));
+    assertTrue(table.player(1).passColor());
+    assertEquals(0, table.player(1).timesPassed());
+    assertEquals(1, table.player(1).totalScore());
+  }
+
+  @Test
+  @DisplayName("the last box needs five boxes first, and locks the row for everyone")
+  public void need5AndLock() {
+    QwixxTable table = new QwixxTable(2);
+    bothCross(table, 1, 1, 0, 0);
+    bothCross(table, 1, 2, 0, 1);
+    bothCross(table, 2, 2, 0, 2);
+    bothCross(table, 2, 3, 0, 3);
+
+    // Only player 0 crosses out the 6.
+    roll(table, 3, 3);
+    assertEquals(VALID, table.player(0).numberSelected(0, 4));
+    assertTrue(table.player(1).passWhite());
+    assertTrue(table.player(0).passColor());
+
+    roll(table, 6, 6);
+    assertEquals(0L, table.player(1).legalMoves(0) & (1L << 10));
+    assertEquals(QwixxModel.StatusCode.NEED5, table.player(1).numberSelected(0, 10));
+    assertNotEquals(0L, table.player(0).legalMoves(0) & (1L << 10));
+    assertEquals(VALID, table.player(0).numberSelected(0, 10));
+    assertFalse(table.isLocked(0));
+    assertTrue(table.player(1).passWhite());
+    assertTrue(table.isLocked(0));
+
+    // The lock counts as a seventh box.
+    assertEquals(28, table.player(0).rowScore(0));
+    assertEquals(QwixxModel.StatusCode.EXCLUDED, table.player(1).numberSelected(0, 10));
+    assertEquals(0L, table.player(1).legalMoves(0));
+    assertTrue(table.player(1).passColor());
+    assertFalse(table.gameOver());
+  }
+
+  @Test
+  @DisplayName("players who lock a row on the same roll all get it, and two locked rows end the game")
+  public void twoLocksEndTheGame() {
+    QwixxTable table = new QwixxTable(2);
+    for (int sum = 2; sum <= 6; ++sum) {
+      bothCross(table, 1, sum - 1, 0, sum - 2);
+    }
+    for (int sum = 12; sum >= 8; --sum) {
+      bothCross(table, 6, sum - 6, 2, 12 - sum);
+    }
+
+    roll(table, 6, 6);
+    assertEquals(VALID, table.player(0).numberSelected(0, 10));
+    assertEquals(VALID, table.player(1).numberSelected(0, 10));
+    assertTrue(table.isLocked(0));
+    assertEquals(1, table.lockedRows());
+    assertTrue(table.player(table.activePlayer()).passColor());
+
+    roll(table, 1, 1);
+    assertEquals(VALID, table.player(1).numberSelected(2, 10));
+    assertTrue(table.player(0).passWhite());
+    assertTrue(table.gameOver());
+    assertFalse(table.player(table.activePlayer()).canPassColor());
+    assertEquals(28 + 28, table.player(1).totalScore());
+    assertEquals(28 + 15, table.player(0).totalScore());
+  }
+
+  @Test
+  @DisplayName("players on their own threads play exactly the game one thread would")
+  public void concurrentPlayers() throws InterruptedException {
+    int numPlayers = 8;
+    SplitMixDiceSource sequentialDice = new SplitMixDiceSource(0);
+    SplitMixDiceSource concurrentDice = new SplitMixDiceSource(0);
+    QwixxTable sequential = new QwixxTable(numPlayers, 4, 11, 2, sequentialDice);
+    QwixxTable concurrent = new QwixxTable(numPlayers, 4, 11, 2, concurrentDice);
+    QwixxPolicy[] policies = new QwixxPolicy[numPlayers];
+    for (int i = 0; i < numPlayers; ++i) {
+      policies[i] = QwixxPolicy.greedy(i % 3);
+    }
+
+    for (long game = 0; game < 20; ++game) {
+      sequentialDice.seed(game);
+      concurrentDice.seed(game);
+      sequential.reset();
+      concurrent.reset();
+      sequential.play(policies);
+
+      Thread[] threads = new Thread[numPlayers];
+      for (int i = 0; i < numPlayers; ++i) {
+        QwixxTable.Player player = concurrent.player(i);
+        QwixxPolicy policy = policies[i];
+        threads[i] = new Thread(() -> {
+          while (!concurrent.gameOver()) {
+            if (player.canRoll()) {
+              concurrent.rollDice();
+            } else if (player.canSelect()) {
+              player.act(policy);
+            } else {
+              Thread.yield();
+            }
+          }
+        });
+        threads[i].start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      assertEquals(sequential.rolls(), concurrent.rolls(), "game " + game);
+      for (int i = 0; i < numPlayers; ++i) {
+        assertEquals(sequential.player(i).totalScore(), concurrent.player(i).totalScore(), "game " + game);
+        assertEquals(sequential.player(i).timesPassed(), concurrent.player(i).timesPassed(), "game " + game);
+      }
+    }
+  }
+}
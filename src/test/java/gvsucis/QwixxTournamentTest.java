@@ -0,0 +1,76 @@
+package gvsucis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class QwixxTournamentTest {
+
+  @Test
+  @DisplayName("an entrant plays the same games as a simulator run with the same seed")
+  public void matchesSimulator() throws Exception {
+    QwixxTournament.Standings standings = new QwixxTournament().add("greedy1", () -> QwixxPolicy.greedy(1))
+        .add("greedy2", () -> QwixxPolicy.greedy(2)).run(5_000, 11, new ForkJoinPool(2), null);
+    assertEquals(new QwixxSimulator(() -> QwixxPolicy.greedy(1)).run(5_000, 11).mean(), standings.mean(0), 1e-9);
+    assertEquals(new QwixxSimulator(() -> QwixxPolicy.greedy(2)).run(5_000, 11).mean(), standings.mean(1), 1e-9);
+    assertEquals(standings.mean(0) - standings.mean(1), standings.meanDifference(0, 1), 1e-9);
+    assertEquals(-standings.meanDifference(0, 1), standings.meanDifference(1, 0), 1e-9);
+  }
+
+  @Test
+  @DisplayName("identical entrants tie every game")
+  public void identicalEntrantsTie() throws Exception {
+    QwixxTournament.Standings standings = new QwixxTournament().add("a", () -> QwixxPolicy.greedy(1))
+        .add("b", () -> QwixxPolicy.greedy(1)).run(3_000, 5, new ForkJoinPool(3), null);
+    assertEquals(0.0, standings.meanDifference(0, 1));
+    assertEquals(0.0, standings.differenceStdErr(0, 1));
+    assertEquals(0, standings.wins(0, 1));
+    assertEquals(0, standings.wins(1, 0));
+    assertTrue(standings.stdDev(0) > 0);
+  }
+
+  @Test
+  @DisplayName("the CSV has one row per entrant per game, and agrees with the standings")
+  public void csvRows() throws Exception {
+    StringWriter csv = new StringWriter();
+    QwixxTournament.Standings standings = new QwixxTournament().add("greedy0", () -> QwixxPolicy.greedy(0))
+        .add("passer, always", () -> m -> QwixxPolicy.PASS).run(2_500, 9, new ForkJoinPool(2), csv);
+
+    String[] lines = csv.toString().split("\n");
+    assertEquals(QwixxTournament.CSV_HEADER, lines[0]);
+    assertEquals(1 + 2 * 2_500, lines.length);
+
+    Set<String> seen = new HashSet<>();
+    Map<String, Long> totals = new HashMap<>();
+    for (int i = 1; i < lines.length; ++i) {
+      String line = lines[i];
+      String name = line.contains("\"") ? "passer, always" : "greedy0";
+      String game = line.substring(0, line.indexOf(','));
+      String[] fields = line.substring(line.lastIndexOf(name) + name.length()).split(",");
+      assertTrue(seen.add(game + name), "duplicate row " + line);
+      totals.merge(name, Long.parseLong(fields[1]), Long::sum);
+    }
+    assertEquals(standings.mean(0) * 2_500, totals.get("greedy0"), 1e-6);
+    assertEquals(-20.0 * 2_500, totals.get("passer, always"), 1e-6);
+    assertEquals(0, standings.wins(1, 0));
+    assertTrue(standings.wins(0, 1) > 0);
+  }
+
+  @Test
+  @DisplayName("results do not depend on the number of threads")
+  public void threadCountIndependent() throws Exception {
+    QwixxTournament tournament = new QwixxTournament().add("greedy1", () -> QwixxPolicy.greedy(1))
+        .add("greedy3", () -> QwixxPolicy.greedy(3));
+    QwixxTournament.Standings one = tournament.run(4_000, 2, new ForkJoinPool(1), null);
+    QwixxTournament.Standings four = tournament.run(4_000, 2, new ForkJoinPool(4), null);
+    assertEquals(one.mean(1), four.mean(1));
+    assertEquals(one.differenceStdErr(0, 1), four.differenceStdErr(0, 1));
+    assertEquals(one.wins(1, 0), four.wins(1, 0));
+  }
+}